@@ -16,9 +16,25 @@ public abstract class Animal
     private Field field;
     private Location location;
     private int age;
+    // The id of the animal's species in the default species registry,
+    // and the bit of that id in a diet mask; -1 and 0 if it has none.
+    private int speciesId;
+    private long speciesBit;
+    
+    // The species id of each animal class, by its simple name.
+    private static final ClassValue<Integer> speciesIds = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> animalClass) {
+            return SpeciesRegistry.getDefault().getId(animalClass.getSimpleName());
+        }
+    };
     
     // A shared random number generator to control breeding.
     private static final Random rand = Randomizer.getRandom();
+    
+    // Scratch space for adjacent cells, one per thread.
+    private static final ThreadLocal<int[]> adjacentCells =
+        ThreadLocal.withInitial(() -> new int[Neighbourhood.MAX_SIZE]);
         
     /**
      * Create a new animal at location in field.
@@ -26,10 +42,41 @@ public abstract class Animal
      * @param location The location within the field.
      */
     public Animal(Field field, Location location) {
+        enterField(field, location);
+    }
+    
+    /**
+     * Bring the animal to life at location in field, aged zero.
+     * @param field The field to occupy.
+     * @param location The location within the field.
+     */
+    private void enterField(Field field, Location location) {
         alive = true;
         this.field = field;
+        this.location = null;
+        speciesId = getSpeciesId(getClass());
+        speciesBit = speciesId < 0 ? 0 : 1L << speciesId;
         setLocation(location);
         this.age = 0;
+        field.getStats().incrementCount(getClass());
+    }
+    
+    /**
+     * Take a dead animal of this animal's class from the field's pool
+     * and bring it to life at the given location, aged zero. Subclasses
+     * use this in createAnimal before allocating a new animal.
+     * @param field The field to occupy.
+     * @param location The location within the field.
+     * @return The revived animal, or null if the field keeps no pool
+     *         or the pool has no animal of this class.
+     */
+    protected Animal reuse(Field field, Location location) {
+        AnimalPool pool = field.getAnimalPool();
+        Animal animal = pool == null ? null : pool.take(getClass());
+        if(animal != null) {
+            animal.enterField(field, location);
+        }
+        return animal;
     }
     
     
@@ -62,6 +109,43 @@ public abstract class Animal
     	return age;
     }
     
+    /**
+     * Return the id of the animal's species in the default registry.
+     * @return The species id, or -1 if the registry has no such species.
+     */
+    int getSpeciesId() {
+        return speciesId;
+    }
+    
+    /**
+     * Return the bit of the animal's species in a diet mask, so that a
+     * predator can tell whether it eats the animal with one test.
+     * @return The species bit, or 0 if the animal has no species id.
+     */
+    long getSpeciesBit() {
+        return speciesBit;
+    }
+    
+    /**
+     * Return the id of an animal class's species in the default registry,
+     * which has a species of the same name as the class.
+     * @param animalClass The class.
+     * @return The species id, or -1 if the registry has no such species.
+     */
+    static int getSpeciesId(Class<?> animalClass) {
+        return speciesIds.get(animalClass);
+    }
+    
+    /**
+     * Return scratch space for neighbour lookups in the field. The
+     * buffer is shared by all animals acting on the same thread, so
+     * its contents only last until the next lookup.
+     * @return A buffer of at least Neighbourhood.MAX_SIZE cells.
+     */
+    protected int[] getAdjacentBuffer() {
+        return adjacentCells.get();
+    }
+    
     /**
      * Return the maximum age of this animal.
      * @return The maximum age of this animal.
@@ -92,6 +176,42 @@ public abstract class Animal
      */
     abstract int getMaxLitterSize();
     
+    /**
+     * Return the food level of a newborn animal. In effect, this is the
+     * number of steps it can go before it has to eat. Animals that do
+     * not hunt return 0 and never go hungry.
+     * @return The newborn food level, or 0 if the animal does not hunt.
+     */
+    int getMaxFoodLevel() {
+        return 0;
+    }
+    
+    /**
+     * Return the animal's current food level.
+     * @return The food level, or 0 if the animal does not hunt.
+     */
+    int getFoodLevel() {
+        return 0;
+    }
+    
+    /**
+     * Return the food value of eating an animal of the given class.
+     * @param preyClass The class of the potential prey.
+     * @return The food value, or 0 if this animal does not eat it.
+     */
+    int getFoodValue(Class<?> preyClass) {
+        return 0;
+    }
+    
+    /**
+     * Return the cells in which the animal senses prey and to which it
+     * moves. Unless overridden, these are the adjacent cells.
+     * @return The animal's neighbourhood.
+     */
+    Neighbourhood getNeighbourhood() {
+        return Neighbourhood.MOORE;
+    }
+    
     /**
      * Create an animal.
      * @param b True if to create an animal; false otherwise.
@@ -120,9 +240,12 @@ public abstract class Animal
      * It is removed from the field.
      */
     protected void setDead() {
+        if(alive) {
+            field.getStats().decrementCount(getClass());
+        }
         alive = false;
         if(location != null) {
-            field.clear(location);
+            clearLocation();
             location = null;
             field = null;
         }
@@ -134,12 +257,45 @@ public abstract class Animal
      */
     protected void setLocation(Location newLocation) {
         if(location != null) {
-            field.clear(location);
+            recordEvent(EventJournal.MOVE, cellOf(newLocation), null);
+            clearLocation();
         }
         location = newLocation;
         field.place(this, newLocation);
     }
     
+    /**
+     * Publish an event about this animal to the field's journal, if it
+     * keeps one. Nothing more is published once the animal has died.
+     * @param type The type of event, e.g. EventJournal.BIRTH.
+     * @param otherCell The cell the event concerns, e.g. the prey's, or -1.
+     * @param other The other animal involved, e.g. the prey, or null.
+     */
+    protected void recordEvent(int type, int otherCell, Animal other) {
+        EventJournal journal = alive ? field.getJournal() : null;
+        if(journal != null) {
+            journal.publish(type, getClass(), cellOf(location),
+                            other == null ? null : other.getClass(), otherCell);
+        }
+    }
+    
+    /**
+     * Return the cell of a location in the animal's field.
+     */
+    private int cellOf(Location location) {
+        return location.getRow() * field.getWidth() + location.getCol();
+    }
+    
+    /**
+     * Clear the animal's location in the field, unless another animal
+     * has since been placed there.
+     */
+    private void clearLocation() {
+        if(field.getObjectAt(location) == this) {
+            field.clear(location);
+        }
+    }
+    
     /**
      * Set the animal's age.
      * @param age The value to set the animal's age.
@@ -148,6 +304,13 @@ public abstract class Animal
     	this.age = age;
     }
     
+    /**
+     * Set the animal's food level. Animals that do not hunt ignore it.
+     * @param foodLevel The value to set the animal's food level.
+     */
+    void setFoodLevel(int foodLevel) {
+    }
+    
     //---------------------------------------------------------------------------------------//
     
     
@@ -197,6 +360,7 @@ public abstract class Animal
     protected void incrementAge() {
     	age++;
     	if (age > getMaxAge()) {
+    		recordEvent(EventJournal.AGE_DEATH, -1, null);
     		setDead();
     	}
     } 
@@ -209,14 +373,16 @@ public abstract class Animal
     protected void giveBirth(List<Animal> newborn)
     {
         // Newborns are born into adjacent locations.
-        // Get a list of adjacent free locations.
+        // Get the adjacent free cells.
         Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
+        int[] free = getAdjacentBuffer();
+        int freeCount = field.freeAdjacentCells(getLocation(), free);
         int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
+        for(int b = 0; b < births && b < freeCount; b++) {
+            Location loc = field.locationOf(free[b]);
             Animal young = createAnimal(false, field, loc);
             newborn.add(young);
+            recordEvent(EventJournal.BIRTH, free[b], young);
         }
     }
     
@@ -0,0 +1,104 @@
+package foxes_rabbits_v5;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of dead animals waiting to be reused. The simulator releases
+ * an animal into the pool once it has died and been removed from the
+ * list of animals, and createAnimal takes one of the same class out
+ * again instead of allocating a new one.
+ *
+ * The field holds at most one animal per cell, so the pool never needs
+ * to keep more dead animals of one species than the field has cells;
+ * any beyond that are left to the garbage collector.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class AnimalPool
+{
+    // The initial number of animals each species' stack can hold.
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The most dead animals kept for each species.
+    private final int capacity;
+    // The dead animals of each species.
+    private final Map<Class<?>, Stack> stacks;
+
+    /**
+     * Create a pool for a field of the given size.
+     * @param cells The number of cells in the field.
+     */
+    public AnimalPool(int cells)
+    {
+        capacity = cells;
+        stacks = new HashMap<Class<?>, Stack>();
+    }
+
+    /**
+     * Take a dead animal of the given class out of the pool.
+     * @param animalClass The class of animal wanted.
+     * @return A dead animal of that class, or null if there is none.
+     */
+    public synchronized Animal take(Class<?> animalClass)
+    {
+        Stack stack = stacks.get(animalClass);
+        if(stack == null || stack.size == 0) {
+            return null;
+        }
+        Animal animal = stack.animals[--stack.size];
+        stack.animals[stack.size] = null;
+        return animal;
+    }
+
+    /**
+     * Put a dead animal into the pool. It must no longer be referred
+     * to by the simulation.
+     * @param animal The dead animal.
+     */
+    public synchronized void release(Animal animal)
+    {
+        Stack stack = stacks.get(animal.getClass());
+        if(stack == null) {
+            stack = new Stack(Math.min(INITIAL_CAPACITY, capacity));
+            stacks.put(animal.getClass(), stack);
+        }
+        if(stack.size == stack.animals.length) {
+            if(stack.size >= capacity) {
+                return;
+            }
+            Animal[] larger = new Animal[(int) Math.min((long) stack.size * 2, capacity)];
+            System.arraycopy(stack.animals, 0, larger, 0, stack.size);
+            stack.animals = larger;
+        }
+        stack.animals[stack.size++] = animal;
+    }
+
+    /**
+     * @return The number of dead animals in the pool.
+     */
+    public synchronized int size()
+    {
+        int size = 0;
+        for(Stack stack : stacks.values()) {
+            size += stack.size;
+        }
+        return size;
+    }
+
+    /**
+     * The dead animals of one species.
+     */
+    private static class Stack
+    {
+        // The animals, of which the first size are in use.
+        private Animal[] animals;
+        private int size;
+
+        Stack(int capacity)
+        {
+            animals = new Animal[Math.max(1, capacity)];
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package foxes_rabbits_v5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Save and restore the full state of a simulation in a compact binary
+ * format: the step counter, the seed and state of the shared random
+ * generator, the size of the field, and for every live animal its
+ * cell, species, age and food level.
+ *
+ * Animals are written in the order in which they act, and a species is
+ * stored as its index in the simulator's list of prototypes. Restoring
+ * creates each animal through its prototype, so no reflection is used,
+ * and a restored simulation continues exactly as the saved one would.
+ * Files are written and read through memory-mapped channels.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class Checkpoint
+{
+    // Identifies a checkpoint file, and the version of its format.
+    private static final int MAGIC = 0x46584350;
+    private static final int VERSION = 1;
+
+    // The size of the header: magic, version, seed, generator state,
+    // step, depth, width, species count and animal count.
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4 + 4;
+    // The size of one animal: cell, species, age and food level.
+    private static final int ANIMAL_BYTES = 4 + 1 + 4 + 4;
+
+    /**
+     * Encode the state of a simulation.
+     * @param step The current step.
+     * @param field The field.
+     * @param animals The animals, in the order in which they act.
+     * @param prototypes One animal of each species, giving the species ids.
+     * @return A buffer holding the encoded state, ready to be read.
+     */
+    static ByteBuffer capture(int step, Field field, List<Animal> animals,
+                              List<? extends Animal> prototypes) {
+        Map<Class<?>, Integer> speciesIds = new HashMap<Class<?>, Integer>();
+        for(int id = 0; id < prototypes.size(); id++) {
+            speciesIds.put(prototypes.get(id).getClass(), id);
+        }
+        int live = 0;
+        for(Animal animal : animals) {
+            if(animal.isAlive()) {
+                live++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + live * ANIMAL_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(Randomizer.getSeed());
+        buffer.putLong(Randomizer.getState());
+        buffer.putInt(step);
+        buffer.putInt(field.getDepth());
+        buffer.putInt(field.getWidth());
+        buffer.putInt(prototypes.size());
+        buffer.putInt(live);
+        for(Animal animal : animals) {
+            if(animal.isAlive()) {
+                Integer id = speciesIds.get(animal.getClass());
+                if(id == null) {
+                    throw new IllegalStateException("No prototype for " + animal.getClass().getName());
+                }
+                Location location = animal.getLocation();
+                buffer.putInt(location.getRow() * field.getWidth() + location.getCol());
+                buffer.put((byte) (int) id);
+                buffer.putInt(animal.getAge());
+                buffer.putInt(animal.getFoodLevel());
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Replace the state of a simulation with an encoded one.
+     * @param buffer The encoded state.
+     * @param field The field to fill. It must have the saved size.
+     * @param animals The list to fill with the animals.
+     * @param prototypes One animal of each species, as when it was saved.
+     * @return The saved step.
+     * @throws IOException If the buffer does not hold a matching checkpoint,
+     *                     in which case nothing is changed.
+     */
+    static int restore(ByteBuffer buffer, Field field, List<Animal> animals,
+                       List<? extends Animal> prototypes) throws IOException {
+        if(buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a checkpoint");
+        }
+        int version = buffer.getInt();
+        if(version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version);
+        }
+        long seed = buffer.getLong();
+        long state = buffer.getLong();
+        int step = buffer.getInt();
+        int depth = buffer.getInt();
+        int width = buffer.getInt();
+        int speciesCount = buffer.getInt();
+        int live = buffer.getInt();
+        if(depth != field.getDepth() || width != field.getWidth()) {
+            throw new IOException("The checkpoint is of a " + depth + "x" + width + " field");
+        }
+        if(speciesCount != prototypes.size()) {
+            throw new IOException("The checkpoint has " + speciesCount + " species");
+        }
+        if(buffer.remaining() < (long) live * ANIMAL_BYTES) {
+            throw new IOException("The checkpoint is truncated");
+        }
+        checkAnimals(buffer, live, (long) depth * width, speciesCount);
+
+        field.clear();
+        animals.clear();
+        for(int i = 0; i < live; i++) {
+            Location location = field.locationOf(buffer.getInt());
+            Animal prototype = prototypes.get(buffer.get());
+            Animal animal = prototype.createAnimal(false, field, location);
+            animal.setAge(buffer.getInt());
+            animal.setFoodLevel(buffer.getInt());
+            animals.add(animal);
+        }
+        Randomizer.restore(seed, state);
+        return step;
+    }
+
+    /**
+     * Check that every saved animal has a cell within the field, no
+     * other animal in its cell, and a known species, before anything is
+     * restored.
+     * @param buffer The encoded state, at the first animal.
+     * @param live The number of animals.
+     * @param cells The number of cells in the field.
+     * @param speciesCount The number of species.
+     * @throws IOException If an animal is out of range or shares a cell.
+     */
+    private static void checkAnimals(ByteBuffer buffer, int live, long cells,
+                                     int speciesCount) throws IOException {
+        // The cells seen so far. It grows only as far as the highest
+        // cell, so a large sparse field does not pay for its empty area.
+        BitSet seen = new BitSet();
+        int position = buffer.position();
+        for(int i = 0; i < live; i++, position += ANIMAL_BYTES) {
+            int cell = buffer.getInt(position);
+            int species = buffer.get(position + 4);
+            if(cell < 0 || cell >= cells || species < 0 || species >= speciesCount || seen.get(cell)) {
+                throw new IOException("Corrupt checkpoint");
+            }
+            seen.set(cell);
+        }
+    }
+
+    /**
+     * Write an encoded state to a file. The file is written under a
+     * temporary name and then moved into place, so an existing
+     * checkpoint is only replaced by a complete one.
+     * @param buffer The encoded state.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(ByteBuffer buffer, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.remaining());
+            out.put(buffer.duplicate());
+            out.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Map a checkpoint file for reading.
+     * @param file The file to read.
+     * @return A buffer over the contents of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    static ByteBuffer read(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * A listener that saves a checkpoint of a simulator every so many
+     * steps. The state is captured on the simulation thread, which only
+     * copies it into memory, and written to disk on a background
+     * thread. If the previous checkpoint is still being written when
+     * the next is due, the new one is skipped.
+     */
+    static class Autosave implements SimulationListener
+    {
+        // The simulator to save.
+        private final Simulator simulator;
+        // The file to save to.
+        private final Path file;
+        // How many steps pass between two checkpoints.
+        private final int interval;
+        // Writes the checkpoints.
+        private final ExecutorService writer;
+        // Whether a checkpoint is being written.
+        private final AtomicBoolean writing;
+
+        /**
+         * Create an autosave for the given simulator.
+         * @param simulator The simulator to save.
+         * @param file The file to save to.
+         * @param interval Save every interval steps.
+         */
+        Autosave(Simulator simulator, Path file, int interval) {
+            this.simulator = simulator;
+            this.file = file;
+            this.interval = Math.max(1, interval);
+            writing = new AtomicBoolean();
+            writer = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Save a checkpoint in the background, unless one is already
+         * being written. The starting state after a reset is not saved.
+         */
+        @Override
+        public void showStatus(int step, Field field) {
+            if(step == 0 || !writing.compareAndSet(false, true)) {
+                return;
+            }
+            ByteBuffer state = simulator.captureCheckpoint();
+            writer.execute(() -> {
+                try {
+                    write(state, file);
+                }
+                catch(IOException e) {
+                    System.out.println("Could not save the checkpoint: " + e.getMessage());
+                }
+                finally {
+                    writing.set(false);
+                }
+            });
+        }
+
+        /**
+         * @return How many steps pass between two checkpoints.
+         */
+        @Override
+        public int getNotificationInterval() {
+            return interval;
+        }
+
+        /**
+         * Stop the background thread once pending writes are done.
+         */
+        void shutdown() {
+            writer.shutdown();
+        }
+    }
+}
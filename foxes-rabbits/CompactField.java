@@ -0,0 +1,162 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Represent a rectangular grid of field positions for the compact
+ * simulation engine. Rather than an animal object, each position
+ * stores the slot index of its occupant in a CompactPopulation.
+ * Positions are numbered row by row, so cell = row * width + col.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class CompactField
+{
+    // The slot index stored in an empty cell.
+    public static final int EMPTY = -1;
+
+    // The largest number of cells adjacent to any one cell.
+    public static final int MAX_ADJACENT = 8;
+
+    // A random number generator for shuffling adjacent cells.
+    private static final Random rand = Randomizer.getRandom();
+
+    // The depth and width of the field.
+    private final int depth, width;
+    // The slot index of the animal in each cell, or EMPTY.
+    private final int[] cells;
+
+    /**
+     * Represent a field of the given dimensions.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public CompactField(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        cells = new int[depth * width];
+        Arrays.fill(cells, EMPTY);
+    }
+
+    /**
+     * Empty the field.
+     */
+    public void clear() {
+        Arrays.fill(cells, EMPTY);
+    }
+
+    /**
+     * Clear the given cell.
+     * @param cell The cell to clear.
+     */
+    public void clear(int cell) {
+        cells[cell] = EMPTY;
+    }
+
+    /**
+     * Place an animal in the given cell. If there is already an
+     * animal in the cell it will be lost.
+     * @param slot The population slot of the animal.
+     * @param cell Where to place the animal.
+     */
+    public void place(int slot, int cell) {
+        cells[cell] = slot;
+    }
+
+    /**
+     * Return the slot of the animal in the given cell, if any.
+     * @param cell Where in the field.
+     * @return The animal's slot, or EMPTY if there is none.
+     */
+    public int getSlotAt(int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * Return the cell at the given row and column.
+     * @param row The row.
+     * @param col The column.
+     * @return The cell index.
+     */
+    public int cellOf(int row, int col) {
+        return row * width + col;
+    }
+
+    /**
+     * Fill the buffer with the cells adjacent to the given one, in a
+     * random order. The cell itself is not included, and all cells lie
+     * within the grid. The order of shuffling is the same as that of
+     * Field.adjacentLocations.
+     * @param cell The cell from which to generate adjacencies.
+     * @param buffer Receives the adjacent cells; at least MAX_ADJACENT long.
+     * @return The number of adjacent cells.
+     */
+    public int adjacentCells(int cell, int[] buffer) {
+        int row = cell / width;
+        int col = cell - row * width;
+        int count = 0;
+        for(int roffset = -1; roffset <= 1; roffset++) {
+            int nextRow = row + roffset;
+            if(nextRow >= 0 && nextRow < depth) {
+                for(int coffset = -1; coffset <= 1; coffset++) {
+                    int nextCol = col + coffset;
+                    // Exclude invalid locations and the original location.
+                    if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
+                        buffer[count++] = nextRow * width + nextCol;
+                    }
+                }
+            }
+        }
+        shuffle(buffer, count);
+        return count;
+    }
+
+    /**
+     * Fill the buffer with the free cells adjacent to the given one,
+     * in a random order.
+     * @param cell The cell from which to generate adjacencies.
+     * @param buffer Receives the free cells; at least MAX_ADJACENT long.
+     * @return The number of free adjacent cells.
+     */
+    public int freeAdjacentCells(int cell, int[] buffer) {
+        int adjacent = adjacentCells(cell, buffer);
+        int free = 0;
+        for(int i = 0; i < adjacent; i++) {
+            if(cells[buffer[i]] == EMPTY) {
+                buffer[free++] = buffer[i];
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Shuffle the first count entries of the buffer in place, drawing
+     * random numbers just as Collections.shuffle does.
+     */
+    private static void shuffle(int[] buffer, int count) {
+        for(int i = count; i > 1; i--) {
+            int j = rand.nextInt(i);
+            int tmp = buffer[i - 1];
+            buffer[i - 1] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    /**
+     * Return the depth of the field.
+     * @return The depth of the field.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Return the width of the field.
+     * @return The width of the field.
+     */
+    public int getWidth() {
+        return width;
+    }
+}
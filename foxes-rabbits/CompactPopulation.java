@@ -0,0 +1,219 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+
+/**
+ * Store the animals of the compact simulation engine as columns of
+ * primitives rather than as objects. Each animal occupies one slot;
+ * its species id, cell, age and food level are kept in parallel
+ * arrays indexed by that slot. Species ids are stored as bytes, and ages
+ * and food levels as shorts, so they must lie between Short.MIN_VALUE
+ * and Short.MAX_VALUE.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class CompactPopulation
+{
+    // The initial number of slots.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The species id of the animal in each slot.
+    private byte[] species;
+    // The cell of the animal in each slot, or CompactField.EMPTY once dead.
+    private int[] cells;
+    // The age of the animal in each slot.
+    private short[] ages;
+    // The food level of the animal in each slot.
+    private short[] foodLevels;
+    // 1 for each slot whose animal dies in the current step, else 0.
+    private byte[] dying;
+    // The number of slots in use, including dead animals not yet removed.
+    private int size;
+
+    /**
+     * Create an empty population.
+     */
+    public CompactPopulation() {
+        species = new byte[INITIAL_CAPACITY];
+        cells = new int[INITIAL_CAPACITY];
+        ages = new short[INITIAL_CAPACITY];
+        foodLevels = new short[INITIAL_CAPACITY];
+        dying = new byte[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Add an animal to the population. It is not placed in the field.
+     * @param speciesId The animal's species id.
+     * @param cell The animal's cell.
+     * @param age The animal's age.
+     * @param foodLevel The animal's food level.
+     * @return The slot of the new animal.
+     * @throws IllegalArgumentException If the age or food level does not
+     *                                  fit in a short.
+     */
+    public int add(int speciesId, int cell, int age, int foodLevel) {
+        short shortAge = toShort("age", age);
+        short shortFoodLevel = toShort("food level", foodLevel);
+        if(size == cells.length) {
+            grow();
+        }
+        int slot = size++;
+        species[slot] = (byte) speciesId;
+        cells[slot] = cell;
+        ages[slot] = shortAge;
+        foodLevels[slot] = shortFoodLevel;
+        return slot;
+    }
+
+    /**
+     * Remove every animal.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Age every animal by one step: its age goes up by one, its food
+     * level goes down by the hunger of its species, and it is marked as
+     * dying if it is now too old or has starved. The animals stay in
+     * the field until the caller sees they are dying.
+     * @param lifecycle Does the work.
+     * @param maxAges The age to which each species can live, by id.
+     * @param hunger 1 for each species that can starve, else 0, by id.
+     */
+    public void advance(Lifecycle lifecycle, short[] maxAges, short[] hunger) {
+        lifecycle.advance(species, ages, foodLevels, size, maxAges, hunger, dying);
+    }
+
+    /**
+     * @return True if the animal in the given slot dies of old age or
+     *         hunger in this step, as found by advance.
+     */
+    public boolean isDying(int slot) {
+        return dying[slot] != 0;
+    }
+
+    /**
+     * Remove dead animals, keeping the survivors in their current
+     * order, and update the field to their new slots.
+     * @param field The field the animals occupy.
+     */
+    public void compact(CompactField field) {
+        int live = 0;
+        for(int slot = 0; slot < size; slot++) {
+            int cell = cells[slot];
+            if(cell != CompactField.EMPTY) {
+                if(live != slot) {
+                    species[live] = species[slot];
+                    cells[live] = cell;
+                    ages[live] = ages[slot];
+                    foodLevels[live] = foodLevels[slot];
+                    field.place(live, cell);
+                }
+                live++;
+            }
+        }
+        size = live;
+    }
+
+    /**
+     * Double the number of slots.
+     */
+    private void grow() {
+        int capacity = cells.length * 2;
+        species = Arrays.copyOf(species, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        foodLevels = Arrays.copyOf(foodLevels, capacity);
+        dying = Arrays.copyOf(dying, capacity);
+    }
+
+    /**
+     * @return The number of slots in use, including dead animals
+     *         that have not been removed yet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if the animal in the given slot is alive.
+     */
+    public boolean isAlive(int slot) {
+        return cells[slot] != CompactField.EMPTY;
+    }
+
+    /**
+     * Indicate that the animal in the given slot is no longer alive.
+     * The caller is responsible for clearing its cell in the field.
+     */
+    public void setDead(int slot) {
+        cells[slot] = CompactField.EMPTY;
+    }
+
+    /**
+     * @return The species id of the animal in the given slot.
+     */
+    public int getSpecies(int slot) {
+        return species[slot];
+    }
+
+    /**
+     * @return The cell of the animal in the given slot.
+     */
+    public int getCell(int slot) {
+        return cells[slot];
+    }
+
+    /**
+     * Set the cell of the animal in the given slot.
+     */
+    public void setCell(int slot, int cell) {
+        cells[slot] = cell;
+    }
+
+    /**
+     * @return The age of the animal in the given slot.
+     */
+    public int getAge(int slot) {
+        return ages[slot];
+    }
+
+    /**
+     * Set the age of the animal in the given slot.
+     * @throws IllegalArgumentException If the age does not fit in a short.
+     */
+    public void setAge(int slot, int age) {
+        ages[slot] = toShort("age", age);
+    }
+
+    /**
+     * @return The food level of the animal in the given slot.
+     */
+    public int getFoodLevel(int slot) {
+        return foodLevels[slot];
+    }
+
+    /**
+     * Set the food level of the animal in the given slot.
+     * @throws IllegalArgumentException If the food level does not fit
+     *                                  in a short.
+     */
+    public void setFoodLevel(int slot, int foodLevel) {
+        foodLevels[slot] = toShort("food level", foodLevel);
+    }
+
+    /**
+     * Return a value as a short.
+     * @param what What the value is, for the error message.
+     * @throws IllegalArgumentException If the value does not fit.
+     */
+    private static short toShort(String what, int value) {
+        if(value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("The " + what + " " + value + " does not fit in a short");
+        }
+        return (short) value;
+    }
+}
@@ -0,0 +1,375 @@
+package foxes_rabbits_v5;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A predator-prey simulator that runs the same rules as Simulator, but
+ * stores its animals as columns of primitives in a CompactPopulation
+ * and a CompactField instead of as one object per animal. This keeps
+ * memory use and garbage collection low on very large fields.
+ * The simulator is headless; use getCount to follow the populations.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class CompactSimulator
+{
+    // The default width for the grid.
+    private static final int DEFAULT_WIDTH = 120;
+
+    // The default depth of the grid.
+    private static final int DEFAULT_DEPTH = 80;
+
+    // A shared random number generator, as used by the animal classes.
+    private static final Random rand = Randomizer.getRandom();
+
+    // The characteristics of each species, indexed by species id.
+    private final Species[] species;
+
+    // The age to which each species can live, and 1 for each species
+    // that can starve, else 0, indexed by species id.
+    private final short[] maxAges, hunger;
+
+    // Ages the animals at the start of each step.
+    private Lifecycle lifecycle;
+
+    // The current state of the field.
+    private final CompactField field;
+
+    // The animals in the field.
+    private final CompactPopulation population;
+
+    // The number of live animals of each species.
+    private final int[] counts;
+
+    // Scratch space for adjacent and free cells.
+    private final int[] adjacent, free;
+
+    // The current step of the simulation.
+    private int step;
+
+    /**
+     * Construct a simulation field with default size.
+     * @param prototypes One animal of each species to simulate.
+     */
+    public CompactSimulator(List<? extends Animal> prototypes) {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, prototypes);
+    }
+
+    /**
+     * Create a simulation field with the given size.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param prototypes One animal of each species to simulate.
+     */
+    public CompactSimulator(int depth, int width, List<? extends Animal> prototypes) {
+        this(depth, width, new SpeciesRegistry(Species.fromPrototypes(prototypes)));
+    }
+
+    /**
+     * Create a simulation field with the given size for the species of
+     * a registry. The species need no animal classes of their own.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param registry The species to simulate.
+     * @throws IllegalArgumentException If a species' maximum age does
+     *         not fit in 16 bits.
+     */
+    public CompactSimulator(int depth, int width, SpeciesRegistry registry) {
+        if(width <= 0 || depth <= 0) {
+            System.out.println("The dimensions must be greater than zero.");
+            System.out.println("Using default values.");
+            depth = DEFAULT_DEPTH;
+            width = DEFAULT_WIDTH;
+        }
+
+        species = registry.getSpecies().toArray(new Species[0]);
+        maxAges = new short[species.length];
+        hunger = new short[species.length];
+        for(int id = 0; id < species.length; id++) {
+            int maxAge = species[id].getMaxAge();
+            if(maxAge < 1 || maxAge > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("The maximum age of " + species[id].getName()
+                                                   + " must be from 1 to " + Short.MAX_VALUE + ": " + maxAge);
+            }
+            maxAges[id] = (short) maxAge;
+            hunger[id] = (short) (species[id].isHunter() ? 1 : 0);
+        }
+        lifecycle = Lifecycle.getDefault();
+        field = new CompactField(depth, width);
+        population = new CompactPopulation();
+        counts = new int[species.length];
+        adjacent = new int[CompactField.MAX_ADJACENT];
+        free = new int[CompactField.MAX_ADJACENT];
+        reset();
+    }
+
+    /**
+     * Run the simulation from its current state for the given number of steps.
+     * Stop before the given number of steps if it ceases to be viable.
+     * @param numSteps The number of steps to run for.
+     */
+    public void simulate(int numSteps) {
+        for(int step = 1; step <= numSteps && isViable(); step++) {
+            simulateOneStep();
+        }
+    }
+
+    /**
+     * Run the simulation from its current state for a single step.
+     * Every animal alive at the start of the step acts once; animals
+     * born during the step do not act until the next one. All of them
+     * are aged first, in one pass.
+     */
+    public void simulateOneStep() {
+        step++;
+        population.advance(lifecycle, maxAges, hunger);
+        int acting = population.size();
+        for(int slot = 0; slot < acting; slot++) {
+            if(population.isAlive(slot)) {
+                act(slot);
+            }
+        }
+        population.compact(field);
+    }
+
+    /**
+     * Set what ages the animals at the start of each step, e.g. to
+     * compare the vectorised lifecycle with the scalar one. Both give
+     * the same results.
+     * @param lifecycle The lifecycle.
+     */
+    public void setLifecycle(Lifecycle lifecycle) {
+        this.lifecycle = lifecycle;
+    }
+
+    /**
+     * @return What ages the animals at the start of each step.
+     */
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    /**
+     * Reset the simulation to a starting position.
+     */
+    public void reset() {
+        step = 0;
+        population.clear();
+        field.clear();
+        for(int id = 0; id < counts.length; id++) {
+            counts[id] = 0;
+        }
+        populate();
+    }
+
+    /**
+     * Randomly populate the field with animals.
+     */
+    private void populate() {
+        for(int row = 0; row < field.getDepth(); row++) {
+            for(int col = 0; col < field.getWidth(); col++) {
+                int cell = field.cellOf(row, col);
+                for(int id = 0; id < species.length; id++) {
+                    if(rand.nextDouble() <= species[id].getCreationProbability()) {
+                        int age = rand.nextInt(species[id].getMaxAge());
+                        int foodLevel = 0;
+                        if(species[id].isHunter()) {
+                            foodLevel = rand.nextInt(species[id].getMaxFoodLevel());
+                        }
+                        // A later species replaces an earlier one in the same cell.
+                        int occupant = field.getSlotAt(cell);
+                        if(occupant != CompactField.EMPTY) {
+                            setDead(occupant);
+                        }
+                        field.place(population.add(id, cell, age, foodLevel), cell);
+                        counts[id]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the animal in the given slot act: it has aged and got
+     * hungrier at the start of the step, and dies if it is too old or
+     * starving; else it may breed, and then either eats, moves or dies
+     * of overcrowding.
+     * @param slot The slot of the animal.
+     */
+    private void act(int slot) {
+        if(population.isDying(slot)) {
+            setDead(slot);
+            return;
+        }
+        Species s = species[population.getSpecies(slot)];
+        giveBirth(slot, s);
+        int newCell = CompactField.EMPTY;
+        if(s.isHunter()) {
+            newCell = findFood(slot, s);
+        }
+        if(newCell == CompactField.EMPTY) {
+            // No food found - try to move to a free location.
+            if(field.freeAdjacentCells(population.getCell(slot), free) > 0) {
+                newCell = free[0];
+            }
+        }
+        if(newCell != CompactField.EMPTY) {
+            field.clear(population.getCell(slot));
+            population.setCell(slot, newCell);
+            field.place(slot, newCell);
+        }
+        else {
+            setDead(slot);
+        }
+    }
+
+    /**
+     * Let the animal in the given slot breed into free adjacent cells.
+     * @param slot The slot of the parent.
+     * @param s The parent's species.
+     */
+    private void giveBirth(int slot, Species s) {
+        int freeCount = field.freeAdjacentCells(population.getCell(slot), free);
+        int births = 0;
+        if(population.getAge(slot) >= s.getBreedingAge()
+                && rand.nextDouble() <= s.getBreedingProbability()) {
+            births = rand.nextInt(s.getMaxLitterSize()) + 1;
+        }
+        int id = population.getSpecies(slot);
+        for(int b = 0; b < births && b < freeCount; b++) {
+            int cell = free[b];
+            field.place(population.add(id, cell, 0, s.getMaxFoodLevel()), cell);
+            counts[id]++;
+        }
+    }
+
+    /**
+     * Look for prey adjacent to the animal in the given slot. Only the
+     * first prey found is eaten.
+     * @param slot The slot of the hunter.
+     * @param s The hunter's species.
+     * @return The cell where food was found, or EMPTY if it wasn't.
+     */
+    private int findFood(int slot, Species s) {
+        int count = field.adjacentCells(population.getCell(slot), adjacent);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            int prey = field.getSlotAt(where);
+            if(prey != CompactField.EMPTY) {
+                int foodValue = s.getFoodValue(population.getSpecies(prey));
+                if(foodValue > 0) {
+                    setDead(prey);
+                    population.setFoodLevel(slot, foodValue);
+                    return where;
+                }
+            }
+        }
+        return CompactField.EMPTY;
+    }
+
+    /**
+     * Indicate that the animal in the given slot is no longer alive.
+     * It is removed from the field.
+     * @param slot The slot of the animal.
+     */
+    private void setDead(int slot) {
+        field.clear(population.getCell(slot));
+        population.setDead(slot);
+        counts[population.getSpecies(slot)]--;
+    }
+
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable() {
+        int nonZero = 0;
+        for(int count : counts) {
+            if(count > 0) {
+                nonZero++;
+            }
+        }
+        return nonZero > 1;
+    }
+
+    /**
+     * Return the number of live animals of a species.
+     * @param speciesId The species id; its index in the prototype list
+     *                  or registry.
+     * @return The number of live animals of that species.
+     */
+    public int getCount(int speciesId) {
+        return counts[speciesId];
+    }
+
+    /**
+     * Return the characteristics of a species.
+     * @param speciesId The species id; its index in the prototype list
+     *                  or registry.
+     * @return The species.
+     */
+    public Species getSpecies(int speciesId) {
+        return species[speciesId];
+    }
+
+    /**
+     * @return The number of species in the simulation.
+     */
+    public int getSpeciesCount() {
+        return species.length;
+    }
+
+    /**
+     * @return The current step of the simulation.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * @return The current state of the field.
+     */
+    public CompactField getField() {
+        return field;
+    }
+
+    /**
+     * Get details of what is in the field.
+     * @return A string describing what is in the field.
+     */
+    public String getPopulationDetails() {
+        StringBuilder buffer = new StringBuilder();
+        for(int id = 0; id < species.length; id++) {
+            buffer.append(species[id].getName());
+            buffer.append(": ");
+            buffer.append(counts[id]);
+            buffer.append(' ');
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Simulate the species of a registry file, printing the populations
+     * every tenth of the run.
+     * @param args The species file, and the number of steps; by default
+     *             the default registry and 1000 steps.
+     */
+    public static void main(String[] args) throws IOException {
+        SpeciesRegistry registry = args.length > 0 ? SpeciesRegistry.load(Paths.get(args[0]))
+                                                   : SpeciesRegistry.getDefault();
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        CompactSimulator simulator = new CompactSimulator(DEFAULT_DEPTH, DEFAULT_WIDTH, registry);
+        int interval = Math.max(1, steps / 10);
+        System.out.println("Step 0: " + simulator.getPopulationDetails());
+        for(int step = 1; step <= steps && simulator.isViable(); step++) {
+            simulator.simulateOneStep();
+            if(step % interval == 0) {
+                System.out.println("Step " + step + ": " + simulator.getPopulationDetails());
+            }
+        }
+    }
+}
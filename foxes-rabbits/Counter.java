@@ -1,10 +1,13 @@
 package foxes_rabbits_v5;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Provide a counter for a participant in the simulation.
  * This includes an identifying string and a count of how
  * many participants of this type currently exist within 
- * the simulation.
+ * the simulation. The count may be updated from several threads
+ * at once.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2011.07.31
@@ -14,7 +17,7 @@ public class Counter
     // A name for this type of simulation participant
     private String name;
     // How many of this type exist in the simulation.
-    private int count;
+    private LongAdder count;
 
     /**
      * Provide a name for one of the simulation types.
@@ -23,7 +26,7 @@ public class Counter
     public Counter(String name)
     {
         this.name = name;
-        count = 0;
+        count = new LongAdder();
     }
     
     /**
@@ -39,7 +42,7 @@ public class Counter
      */
     public int getCount()
     {
-        return count;
+        return count.intValue();
     }
 
     /**
@@ -47,7 +50,15 @@ public class Counter
      */
     public void increment()
     {
-        count++;
+        count.increment();
+    }
+    
+    /**
+     * Decrement the current count by one.
+     */
+    public void decrement()
+    {
+        count.decrement();
     }
     
     /**
@@ -55,6 +66,6 @@ public class Counter
      */
     public void reset()
     {
-        count = 0;
+        count.reset();
     }
 }
\ No newline at end of file
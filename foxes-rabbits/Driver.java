@@ -1,15 +1,29 @@
 package foxes_rabbits_v5;
 
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Scanner;
 
 public class Driver {
 
+	// Where the simulation is saved and continued from.
+	private static final Path CHECKPOINT = Paths.get("simulation.checkpoint");
+
+	// How much the populations may drift between windows and still count as settled.
+	private static final double STEADY_TOLERANCE = 0.1;
+
 	public static void main(String[] args) {
 		
 		// Create a list of animals that we can pass into the simulation to start with.
 		ArrayList<Animal> newAnimals = new ArrayList<Animal>();
-		Simulator mySim = new Simulator(createAnimals(newAnimals));
+		// Without a display there is nothing to draw on, so run headless.
+		boolean headless = GraphicsEnvironment.isHeadless();
+		Simulator mySim = new Simulator(createAnimals(newAnimals), headless);
+		// Let the step timings be watched and switched on over JMX.
+		mySim.getMetrics().register("driver");
 
 		char choice;
 		Scanner sc = new Scanner(System.in);
@@ -30,6 +44,10 @@ public class Driver {
 		System.out.println(" 5. Simulate fifty steps");
 		System.out.println(" 0. Simulate 100 steps");
 		System.out.println(" L. Run long simulation (4000 steps)");
+		System.out.println(" U. Run until steady (at most 4000 steps)");
+		System.out.println(" S. Save a checkpoint");
+		System.out.println(" C. Continue from the checkpoint");
+		System.out.println(" M. Show step timings (switches them on)");
 		System.out.println(" X. Exit simulator");
 		return sc.next().toUpperCase().charAt(0);
 	}
@@ -57,6 +75,29 @@ public class Driver {
 		case('L'):
 			mySim.runLongSimulation();
 			break;
+		case('U'):
+			System.out.println(mySim.simulateUntilSteady(4000, STEADY_TOLERANCE));
+			break;
+		case('S'):
+			try {
+				mySim.saveCheckpoint(CHECKPOINT);
+			}
+			catch(IOException e) {
+				System.out.println("Could not save the checkpoint: " + e.getMessage());
+			}
+			break;
+		case('C'):
+			try {
+				mySim.restoreCheckpoint(CHECKPOINT);
+			}
+			catch(IOException e) {
+				System.out.println("Could not continue from the checkpoint: " + e.getMessage());
+			}
+			break;
+		case('M'):
+			System.out.println(mySim.getMetrics().snapshot());
+			mySim.getMetrics().setEnabled(true);
+			break;
 		case('X'):
 			System.out.println("Goodbye.");
 			break;
@@ -0,0 +1,179 @@
+package foxes_rabbits_v5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Run an ensemble of independent headless simulations with different
+ * seeds on a fixed number of threads, and collect per-step population
+ * statistics over them.
+ *
+ * Each run binds its own random stream to the thread running it, keyed
+ * by the run's seed, so runs share no random state and a run gives the
+ * same results whichever thread runs it and whatever runs beside it.
+ * A run's populations are added to the statistics as soon as it
+ * finishes and then dropped, so only the runs in progress are held in
+ * memory.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EnsembleRunner
+{
+    // The size of the field of each run.
+    private final int depth, width;
+    // One animal of each species to simulate.
+    private final ArrayList<Animal> prototypes;
+    // The number of steps of each run.
+    private final int steps;
+    // The number of runs simulated at the same time.
+    private final int threads;
+
+    /**
+     * Told about each run as it finishes.
+     */
+    public interface Listener
+    {
+        /**
+         * Called on the thread of a run once it has been added to the
+         * statistics.
+         * @param seed The seed of the run.
+         * @param statistics The statistics, including the run.
+         */
+        void runFinished(long seed, EnsembleStatistics statistics);
+    }
+
+    /**
+     * Create an ensemble runner.
+     * @param depth Depth of the field of each run.
+     * @param width Width of the field of each run.
+     * @param prototypes One animal of each species to simulate.
+     * @param steps The number of steps of each run.
+     * @param threads The number of runs simulated at the same time.
+     */
+    public EnsembleRunner(int depth, int width, List<? extends Animal> prototypes,
+                          int steps, int threads) {
+        this.depth = depth;
+        this.width = width;
+        this.prototypes = new ArrayList<Animal>(prototypes);
+        this.steps = steps;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Run the ensemble and wait for every run to finish.
+     * @param firstSeed The seed of the first run; the others follow on.
+     * @param runs The number of runs.
+     * @param listener Told about each run as it finishes, or null.
+     * @return The statistics over all runs.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public EnsembleStatistics run(long firstSeed, int runs, Listener listener)
+        throws InterruptedException {
+        EnsembleStatistics statistics = new EnsembleStatistics(prototypes, steps);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>(runs);
+            for(int r = 0; r < runs; r++) {
+                long seed = firstSeed + r;
+                results.add(pool.submit(() -> {
+                    statistics.addRun(simulate(seed));
+                    if(listener != null) {
+                        listener.runFinished(seed, statistics);
+                    }
+                }));
+            }
+            for(Future<?> result : results) {
+                result.get();
+            }
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("A run failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        return statistics;
+    }
+
+    /**
+     * Simulate one run on the current thread.
+     * @param seed The seed of the run.
+     * @return The population of each species at each step, indexed by
+     *         step * species + species id.
+     */
+    private int[] simulate(long seed) {
+        int species = prototypes.size();
+        int[] counts = new int[(steps + 1) * species];
+        Randomizer.bind(Randomizer.stream(seed));
+        try {
+            Simulator simulator = new Simulator(depth, width, prototypes, true);
+            Field field = simulator.getField();
+            boolean empty = count(field, counts, 0);
+            for(int step = 1; step <= steps; step++) {
+                // Once every animal is dead, nothing changes any more.
+                if(!empty) {
+                    simulator.simulateOneStep();
+                    empty = count(field, counts, step * species);
+                }
+            }
+        }
+        finally {
+            Randomizer.unbind();
+        }
+        return counts;
+    }
+
+    /**
+     * Record the population of each species.
+     * @param field The field.
+     * @param counts Where to record the populations.
+     * @param offset Where to record the first species.
+     * @return True if the field is empty.
+     */
+    private boolean count(Field field, int[] counts, int offset) {
+        FieldStats stats = field.getStats();
+        int total = 0;
+        for(int id = 0; id < prototypes.size(); id++) {
+            counts[offset + id] = stats.getCount(prototypes.get(id).getClass(), field);
+            total += counts[offset + id];
+        }
+        return total == 0;
+    }
+
+    /**
+     * Run an ensemble with the default field size and species, printing
+     * progress as runs finish and the statistics every tenth of the run.
+     * @param args The number of runs, steps and threads; by default
+     *             100 runs of 500 steps on every processor.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                                      : Runtime.getRuntime().availableProcessors();
+
+        Field field = new Field(2, 2);
+        Location location = new Location(1, 1);
+        List<Animal> prototypes = new ArrayList<Animal>();
+        prototypes.add(new Fox(false, field, location));
+        prototypes.add(new Rabbit(false, field, location));
+        prototypes.add(new Wolf(false, field, location));
+
+        EnsembleRunner runner = new EnsembleRunner(80, 120, prototypes, steps, threads);
+        EnsembleStatistics statistics = runner.run(Randomizer.getSeed(), runs,
+            (seed, stats) -> System.out.println("Run " + seed + " finished, "
+                                               + stats.getRuns() + " of " + runs));
+        int interval = Math.max(1, steps / 10);
+        for(int step = 0; step <= steps; step += interval) {
+            System.out.println("Step " + step + ": " + statistics.getDetails(step));
+        }
+    }
+}
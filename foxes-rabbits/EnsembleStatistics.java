@@ -0,0 +1,138 @@
+package foxes_rabbits_v5;
+
+import java.util.List;
+
+/**
+ * Per-step population statistics over an ensemble of simulation runs:
+ * for every step and species, the mean and variance of the population
+ * and the probability that the species is extinct. Runs are added one
+ * at a time as they finish, using Welford's method, so the history of
+ * a run can be dropped as soon as it has been added.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EnsembleStatistics
+{
+    // The names of the species, indexed by species id.
+    private final String[] names;
+    // The number of steps per run, not counting the starting state.
+    private final int steps;
+    // The number of runs added so far.
+    private int runs;
+    // The running mean and sum of squared deviations of each
+    // population, indexed by step * species + species id.
+    private final double[] means, squares;
+    // The number of runs in which each species was extinct, indexed
+    // in the same way.
+    private final int[] extinctions;
+
+    /**
+     * Create empty statistics.
+     * @param prototypes One animal of each species.
+     * @param steps The number of steps per run.
+     */
+    public EnsembleStatistics(List<? extends Animal> prototypes, int steps) {
+        names = new String[prototypes.size()];
+        for(int id = 0; id < names.length; id++) {
+            names[id] = prototypes.get(id).getClass().getSimpleName();
+        }
+        this.steps = steps;
+        int size = (steps + 1) * names.length;
+        means = new double[size];
+        squares = new double[size];
+        extinctions = new int[size];
+    }
+
+    /**
+     * Add the populations of one finished run.
+     * @param counts The population of each species at each step,
+     *               indexed by step * species + species id, starting
+     *               with the starting state at step 0.
+     */
+    public synchronized void addRun(int[] counts) {
+        runs++;
+        for(int i = 0; i < means.length; i++) {
+            double count = counts[i];
+            double delta = count - means[i];
+            means[i] += delta / runs;
+            squares[i] += delta * (count - means[i]);
+            if(counts[i] == 0) {
+                extinctions[i]++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of runs added so far.
+     */
+    public synchronized int getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return The number of steps per run.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return The number of species.
+     */
+    public int getSpeciesCount() {
+        return names.length;
+    }
+
+    /**
+     * @param species The species id.
+     * @return The name of the species.
+     */
+    public String getName(int species) {
+        return names[species];
+    }
+
+    /**
+     * @param step The step; 0 for the starting state.
+     * @param species The species id.
+     * @return The mean population over the runs so far.
+     */
+    public synchronized double getMean(int step, int species) {
+        return means[step * names.length + species];
+    }
+
+    /**
+     * @param step The step; 0 for the starting state.
+     * @param species The species id.
+     * @return The sample variance of the population over the runs so
+     *         far, or NaN with fewer than two runs.
+     */
+    public synchronized double getVariance(int step, int species) {
+        return runs < 2 ? Double.NaN : squares[step * names.length + species] / (runs - 1);
+    }
+
+    /**
+     * @param step The step; 0 for the starting state.
+     * @param species The species id.
+     * @return The fraction of the runs so far in which the species
+     *         was extinct at that step.
+     */
+    public synchronized double getExtinctionProbability(int step, int species) {
+        return runs == 0 ? Double.NaN : (double) extinctions[step * names.length + species] / runs;
+    }
+
+    /**
+     * Describe the statistics of one step.
+     * @param step The step; 0 for the starting state.
+     * @return A string describing each species at that step.
+     */
+    public synchronized String getDetails(int step) {
+        StringBuilder buffer = new StringBuilder();
+        for(int id = 0; id < names.length; id++) {
+            buffer.append(String.format("%s: %.1f (sd %.1f, extinct %.2f) ", names[id],
+                    getMean(step, id), Math.sqrt(getVariance(step, id)),
+                    getExtinctionProbability(step, id)));
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package foxes_rabbits_v5;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A consumer of an event journal that counts the events of each type
+ * for each species. The counts may be read from any thread while the
+ * journal is running.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EventCounts implements EventJournal.Consumer
+{
+    // The species counted, whose index is their id in events.
+    private final List<Class<?>> species;
+    // The count of each type of event for each species, indexed by
+    // type * species + id.
+    private final AtomicLongArray counts;
+
+    /**
+     * Create counts for the species of the given journal.
+     * @param journal The journal to be counted.
+     */
+    public EventCounts(EventJournal journal)
+    {
+        species = journal.getSpecies();
+        counts = new AtomicLongArray(EventJournal.TYPES * species.size());
+    }
+
+    /**
+     * Count an event. Events about animals of unknown species are ignored.
+     * @param event The event.
+     */
+    @Override
+    public void onEvent(EventJournal.Event event)
+    {
+        int id = event.getSpecies();
+        if(id >= 0) {
+            int index = event.getType() * species.size() + id;
+            // Only the journal's thread for this consumer writes.
+            counts.lazySet(index, counts.get(index) + 1);
+        }
+    }
+
+    /**
+     * Return the number of events of a type that happened to a species.
+     * @param type The type of event, e.g. EventJournal.BIRTH.
+     * @param animalClass The class of the species.
+     * @return The number of events, or 0 if the species is not counted.
+     */
+    public long getCount(int type, Class<?> animalClass)
+    {
+        int id = species.indexOf(animalClass);
+        return id < 0 ? 0 : counts.get(type * species.size() + id);
+    }
+
+    /**
+     * @return The counts as text, one line per species.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        for(int id = 0; id < species.size(); id++) {
+            text.append(species.get(id).getSimpleName()).append(':');
+            for(int type = 0; type < EventJournal.TYPES; type++) {
+                text.append(' ').append(EventJournal.getTypeName(type)).append(' ')
+                    .append(counts.get(type * species.size() + id));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
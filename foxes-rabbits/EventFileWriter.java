@@ -0,0 +1,105 @@
+package foxes_rabbits_v5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A consumer of an event journal that writes every event to a binary
+ * file through a large direct buffer. The file starts with MAGIC, the
+ * version, the number of species and their names, as a length and
+ * UTF-8 bytes, followed by one record per event of six big-endian ints:
+ * type, step, species, cell, other species and other cell, as in
+ * EventJournal.Event.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EventFileWriter implements EventJournal.Consumer
+{
+    // Identifies an event file, and the version of its format.
+    public static final int MAGIC = 0x46584556;
+    public static final int VERSION = 1;
+    // The size of a record, in bytes.
+    public static final int RECORD_BYTES = 24;
+
+    // The size of the direct buffer the file is written through.
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    // The file being written.
+    private final FileChannel channel;
+    // The buffer the file is written through.
+    private final ByteBuffer buffer;
+
+    /**
+     * Create the file and write its header.
+     * @param file The file to write; it is replaced if it exists.
+     * @param journal The journal whose events are written.
+     * @throws IOException If the file cannot be created.
+     */
+    public EventFileWriter(Path file, EventJournal journal) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                   StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        List<Class<?>> species = journal.getSpecies();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(species.size());
+        for(Class<?> animalClass : species) {
+            byte[] name = animalClass.getSimpleName().getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+    }
+
+    /**
+     * Write an event.
+     * @param event The event.
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void onEvent(EventJournal.Event event) throws IOException
+    {
+        if(buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        buffer.putInt(event.getType());
+        buffer.putInt(event.getStep());
+        buffer.putInt(event.getSpecies());
+        buffer.putInt(event.getCell());
+        buffer.putInt(event.getOtherSpecies());
+        buffer.putInt(event.getOtherCell());
+    }
+
+    /**
+     * Write the events still buffered and close the file.
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write the contents of the buffer to the file.
+     */
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
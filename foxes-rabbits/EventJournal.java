@@ -0,0 +1,472 @@
+package foxes_rabbits_v5;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A journal of what happens to the animals: births, deaths of old age
+ * and of starvation, predation and moves. Animals publish events into a
+ * preallocated ring buffer of fixed-size int records, and each consumer
+ * reads every event on a thread of its own, in order, in the manner of
+ * a Disruptor. Publishing allocates nothing and takes no lock.
+ *
+ * There must be a single producer: the simulation, stepping on one
+ * thread. If a consumer falls a whole ring behind, the producer either
+ * waits for it or drops the event and counts it, as chosen when the
+ * journal is created.
+ *
+ * Consumers are added before the journal is started, and it is started
+ * before the simulator is given it. close() waits for them to read
+ * every event published before it was called.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EventJournal implements Closeable
+{
+    // The types of event.
+    public static final int BIRTH = 0;
+    public static final int AGE_DEATH = 1;
+    public static final int STARVATION = 2;
+    public static final int PREDATION = 3;
+    public static final int MOVE = 4;
+    public static final int TYPES = 5;
+    private static final String[] TYPE_NAMES =
+        { "birth", "age death", "starvation", "predation", "move" };
+
+    /**
+     * What the producer does when the ring is full.
+     */
+    public enum Overflow { BLOCK, DROP }
+
+    // The number of ints in a record: type, step, species, cell, other
+    // species and other cell.
+    private static final int RECORD_INTS = 6;
+    // How long an idle consumer or a blocked producer waits before
+    // looking again.
+    private static final long PARK_NANOS = 50_000;
+
+    // The records, RECORD_INTS ints each.
+    private final int[] ring;
+    // The number of records in the ring, less one; a power of two less one.
+    private final int mask;
+    // What the producer does when the ring is full.
+    private final Overflow overflow;
+    // The species, whose index is their id in the records.
+    private final Class<?>[] species;
+    // The consumers and the threads reading for them.
+    private final List<Reader> readers;
+    // The sequence number of the last record published.
+    private final AtomicLong published;
+    // Set once no more records will be published.
+    private volatile boolean closing;
+    // The number of events dropped because the ring was full.
+    private volatile long dropped;
+    private boolean started;
+
+    // Used by the producer only.
+    // The sequence number of the next record.
+    private long nextSequence;
+    // The lowest sequence number read by every consumer, when last looked at.
+    private long readByAll;
+    // The step of the simulation.
+    private int step;
+
+    /**
+     * Read the events of a journal, one at a time, on a thread of its own.
+     */
+    public interface Consumer
+    {
+        /**
+         * Called for each event, in the order they were published.
+         * @param event The event; it is only valid during this call.
+         * @throws IOException If the event cannot be handled; the
+         *         consumer is then told of no more events, as it is if
+         *         it throws a RuntimeException.
+         */
+        void onEvent(Event event) throws IOException;
+
+        /**
+         * Called once the events available have been read, before
+         * waiting for more.
+         * @throws IOException If the batch cannot be finished.
+         */
+        default void onBatchEnd() throws IOException {
+        }
+
+        /**
+         * Called once every event has been read, when the journal is closed.
+         * @throws IOException If the consumer cannot be closed.
+         */
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Create a journal, ready for consumers to be added.
+     * @param capacity The number of events the ring holds; it is
+     *                 rounded up to a power of two.
+     * @param overflow What to do when a consumer falls a ring behind.
+     * @param prototypes One animal of each species simulated.
+     */
+    public EventJournal(int capacity, Overflow overflow, List<? extends Animal> prototypes)
+    {
+        int records = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        ring = new int[records * RECORD_INTS];
+        mask = records - 1;
+        this.overflow = overflow;
+        species = new Class<?>[prototypes.size()];
+        for(int i = 0; i < species.length; i++) {
+            species[i] = prototypes.get(i).getClass();
+        }
+        readers = new ArrayList<Reader>();
+        published = new AtomicLong(-1);
+        readByAll = -1;
+    }
+
+    /**
+     * Add a consumer, which will be told of every event published once
+     * the journal is started.
+     * @param consumer The consumer.
+     * @throws IllegalStateException If the journal has been started.
+     */
+    public synchronized void addConsumer(Consumer consumer)
+    {
+        if(started) {
+            throw new IllegalStateException("Consumers must be added before the journal is started");
+        }
+        readers.add(new Reader(consumer, readers.size()));
+    }
+
+    /**
+     * Start the thread of each consumer.
+     */
+    public synchronized void start()
+    {
+        if(!started) {
+            started = true;
+            for(Reader reader : readers) {
+                reader.start();
+            }
+        }
+    }
+
+    /**
+     * @return True if the journal has been started.
+     */
+    public synchronized boolean isStarted()
+    {
+        return started;
+    }
+
+    /**
+     * Wait for the consumers to read every event published, then close
+     * them. No more events may be published. If the journal was never
+     * started, the consumers are started now to read the events.
+     * @throws IOException If a consumer failed at any point.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        start();
+        closing = true;
+        IOException failure = null;
+        for(Reader reader : readers) {
+            try {
+                reader.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if(failure == null) {
+                failure = reader.failure;
+            }
+            try {
+                reader.consumer.close();
+            }
+            catch(IOException e) {
+                if(failure == null) {
+                    failure = e;
+                }
+            }
+            catch(RuntimeException e) {
+                if(failure == null) {
+                    failure = new IOException("The consumer failed", e);
+                }
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The number of events published.
+     */
+    public long getPublished()
+    {
+        return published.get() + 1;
+    }
+
+    /**
+     * @return The number of events dropped because the ring was full.
+     */
+    public long getDropped()
+    {
+        return dropped;
+    }
+
+    /**
+     * @return The classes of the species, whose index is their id in events.
+     */
+    public List<Class<?>> getSpecies()
+    {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        Collections.addAll(classes, species);
+        return classes;
+    }
+
+    /**
+     * Return the name of a type of event.
+     * @param type The type, e.g. BIRTH.
+     * @return Its name.
+     */
+    public static String getTypeName(int type)
+    {
+        return TYPE_NAMES[type];
+    }
+
+    /**
+     * Set the step of the events published from now on. Called by the
+     * simulator at the start of each step.
+     * @param step The step.
+     */
+    void setStep(int step)
+    {
+        this.step = step;
+    }
+
+    /**
+     * Publish an event. Called by the animals, on the producer's thread.
+     * @param type The type of event, e.g. BIRTH.
+     * @param animalClass The class of the animal it happened to.
+     * @param cell The animal's cell.
+     * @param otherClass The class of the other animal, e.g. the prey
+     *                   or the young, or null if there is none.
+     * @param otherCell The cell the event concerns, e.g. the prey's, or
+     *                  the young's, or where the animal moved to; or -1.
+     */
+    void publish(int type, Class<?> animalClass, int cell, Class<?> otherClass, int otherCell)
+    {
+        long sequence = nextSequence;
+        long wrapPoint = sequence - ring.length / RECORD_INTS;
+        if(wrapPoint > readByAll) {
+            readByAll = lowestRead(sequence);
+            while(wrapPoint > readByAll) {
+                if(overflow == Overflow.DROP) {
+                    dropped++;
+                    return;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+                readByAll = lowestRead(sequence);
+            }
+        }
+        int base = (int) (sequence & mask) * RECORD_INTS;
+        ring[base] = type;
+        ring[base + 1] = step;
+        ring[base + 2] = speciesOf(animalClass);
+        ring[base + 3] = cell;
+        ring[base + 4] = otherClass == null ? -1 : speciesOf(otherClass);
+        ring[base + 5] = otherCell;
+        nextSequence = sequence + 1;
+        // Make the record visible to the consumers.
+        published.lazySet(sequence);
+    }
+
+    /**
+     * Return the lowest sequence number read by every consumer.
+     * @param sequence The sequence number about to be published, which
+     *                 is returned less one if there are no consumers.
+     */
+    private long lowestRead(long sequence)
+    {
+        long lowest = sequence - 1;
+        for(Reader reader : readers) {
+            lowest = Math.min(lowest, reader.read.get());
+        }
+        return lowest;
+    }
+
+    /**
+     * Return the id of a species, or -1 if it is not one of the journal's.
+     */
+    private int speciesOf(Class<?> animalClass)
+    {
+        for(int i = 0; i < species.length; i++) {
+            if(species[i] == animalClass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An event in the ring, as seen by one consumer. The same object is
+     * passed for every event.
+     */
+    public final class Event
+    {
+        // The sequence number of the event and where it is in the ring.
+        private long sequence;
+        private int base;
+
+        private void moveTo(long sequence)
+        {
+            this.sequence = sequence;
+            base = (int) (sequence & mask) * RECORD_INTS;
+        }
+
+        /**
+         * @return The sequence number of the event, counting from 0.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        /**
+         * @return The type of the event, e.g. BIRTH.
+         */
+        public int getType()
+        {
+            return ring[base];
+        }
+
+        /**
+         * @return The step of the simulation it happened in.
+         */
+        public int getStep()
+        {
+            return ring[base + 1];
+        }
+
+        /**
+         * @return The id of the species of the animal it happened to.
+         */
+        public int getSpecies()
+        {
+            return ring[base + 2];
+        }
+
+        /**
+         * @return The cell of the animal it happened to.
+         */
+        public int getCell()
+        {
+            return ring[base + 3];
+        }
+
+        /**
+         * @return The id of the species of the other animal, e.g. the
+         *         prey or the young, or -1 if there is none.
+         */
+        public int getOtherSpecies()
+        {
+            return ring[base + 4];
+        }
+
+        /**
+         * @return The other cell, e.g. the prey's or the young's, or
+         *         where the animal moved to; or -1 if there is none.
+         */
+        public int getOtherCell()
+        {
+            return ring[base + 5];
+        }
+    }
+
+    /**
+     * The thread reading the events for one consumer.
+     */
+    private class Reader extends Thread
+    {
+        // The consumer read for.
+        private final Consumer consumer;
+        // The sequence number of the last event read.
+        private final AtomicLong read;
+        // Why the consumer failed, if it did.
+        private volatile IOException failure;
+
+        Reader(Consumer consumer, int index)
+        {
+            super("event-journal-" + index);
+            setDaemon(true);
+            this.consumer = consumer;
+            read = new AtomicLong(-1);
+        }
+
+        @Override
+        public void run()
+        {
+            Event event = new Event();
+            long next = 0;
+            while(true) {
+                // Read closing first, so nothing published before the
+                // journal was closed is missed.
+                boolean last = closing;
+                long available = published.get();
+                if(next <= available) {
+                    for(; next <= available; next++) {
+                        if(failure == null) {
+                            event.moveTo(next);
+                            handle(event);
+                        }
+                    }
+                    if(failure == null) {
+                        endBatch();
+                    }
+                    // Let the producer reuse the records read.
+                    read.lazySet(available);
+                }
+                else if(last) {
+                    return;
+                }
+                else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        private void handle(Event event)
+        {
+            try {
+                consumer.onEvent(event);
+            }
+            catch(IOException e) {
+                failure = e;
+            }
+            catch(RuntimeException e) {
+                // Keep reading, so the producer never waits on this consumer.
+                failure = new IOException("The consumer failed", e);
+            }
+        }
+
+        private void endBatch()
+        {
+            try {
+                consumer.onBatchEnd();
+            }
+            catch(IOException e) {
+                failure = e;
+            }
+            catch(RuntimeException e) {
+                failure = new IOException("The consumer failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of timestamped simulation events, kept as a binary
+ * heap over parallel arrays of primitives so that scheduling an event
+ * allocates nothing once the queue has grown to its working size.
+ * Events are ordered by time, then by kind, then by the order in which
+ * they were scheduled.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EventQueue
+{
+    // The initial number of events the queue can hold.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The time, kind, subject and subject version of each queued event.
+    private long[] times;
+    private int[] kinds;
+    private int[] agents;
+    private int[] versions;
+    // The order in which each queued event was scheduled.
+    private long[] sequences;
+    // The number of queued events.
+    private int size;
+    // The sequence number of the next event to be scheduled.
+    private long nextSequence;
+
+    // The details of the most recently removed event.
+    private long time;
+    private int kind, agent, version;
+
+    /**
+     * Create an empty event queue.
+     */
+    public EventQueue() {
+        times = new long[INITIAL_CAPACITY];
+        kinds = new int[INITIAL_CAPACITY];
+        agents = new int[INITIAL_CAPACITY];
+        versions = new int[INITIAL_CAPACITY];
+        sequences = new long[INITIAL_CAPACITY];
+        size = 0;
+        nextSequence = 0;
+    }
+
+    /**
+     * Schedule an event.
+     * @param time When the event happens.
+     * @param kind The kind of event; lower kinds go first at equal times.
+     * @param agent The subject of the event.
+     * @param version The version of the subject the event applies to.
+     */
+    public void add(long time, int kind, int agent, int version) {
+        if(size == times.length) {
+            grow();
+        }
+        int i = size++;
+        set(i, time, kind, agent, version, nextSequence++);
+        siftUp(i);
+    }
+
+    /**
+     * Remove the earliest event. Its details are then available from
+     * getTime, getKind, getAgent and getVersion until the next removal.
+     * The queue must not be empty.
+     */
+    public void removeFirst() {
+        time = times[0];
+        kind = kinds[0];
+        agent = agents[0];
+        version = versions[0];
+        size--;
+        if(size > 0) {
+            set(0, times[size], kinds[size], agents[size], versions[size], sequences[size]);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Remove every event.
+     */
+    public void clear() {
+        size = 0;
+        nextSequence = 0;
+    }
+
+    /**
+     * @return True if no events are queued.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of queued events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The time of the earliest event. The queue must not be empty.
+     */
+    public long peekTime() {
+        return times[0];
+    }
+
+    /**
+     * @return The time of the most recently removed event.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return The kind of the most recently removed event.
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The subject of the most recently removed event.
+     */
+    public int getAgent() {
+        return agent;
+    }
+
+    /**
+     * @return The subject version of the most recently removed event.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Move the event at position i up until its parent goes before it.
+     */
+    private void siftUp(int i) {
+        long t = times[i];
+        int k = kinds[i];
+        int a = agents[i];
+        int v = versions[i];
+        long s = sequences[i];
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(!before(t, k, s, parent)) {
+                break;
+            }
+            set(i, times[parent], kinds[parent], agents[parent], versions[parent], sequences[parent]);
+            i = parent;
+        }
+        set(i, t, k, a, v, s);
+    }
+
+    /**
+     * Move the event at position i down until it goes before its children.
+     */
+    private void siftDown(int i) {
+        long t = times[i];
+        int k = kinds[i];
+        int a = agents[i];
+        int v = versions[i];
+        long s = sequences[i];
+        int half = size >>> 1;
+        while(i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if(right < size && before(times[right], kinds[right], sequences[right], child)) {
+                child = right;
+            }
+            if(!before(times[child], kinds[child], sequences[child], t, k, s)) {
+                break;
+            }
+            set(i, times[child], kinds[child], agents[child], versions[child], sequences[child]);
+            i = child;
+        }
+        set(i, t, k, a, v, s);
+    }
+
+    /**
+     * @return True if the given event goes before the one at position j.
+     */
+    private boolean before(long t, int k, long s, int j) {
+        return before(t, k, s, times[j], kinds[j], sequences[j]);
+    }
+
+    /**
+     * @return True if the first event goes before the second.
+     */
+    private static boolean before(long t1, int k1, long s1, long t2, int k2, long s2) {
+        if(t1 != t2) {
+            return t1 < t2;
+        }
+        if(k1 != k2) {
+            return k1 < k2;
+        }
+        return s1 < s2;
+    }
+
+    /**
+     * Store an event at position i.
+     */
+    private void set(int i, long t, int k, int a, int v, long s) {
+        times[i] = t;
+        kinds[i] = k;
+        agents[i] = a;
+        versions[i] = v;
+        sequences[i] = s;
+    }
+
+    /**
+     * Double the capacity of the queue.
+     */
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        agents = Arrays.copyOf(agents, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+    }
+}
@@ -0,0 +1,391 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A discrete-event predator-prey simulator. Unlike Simulator, which
+ * makes every animal act on every step, this simulator keeps a queue
+ * of timestamped events. What can be predicted when an animal is born
+ * or eats is scheduled ahead of time: its death of old age, the time
+ * it starves, and when it reaches breeding age. No work is done for
+ * an animal between its events.
+ * Moves are still scheduled once per time unit for each animal, as the
+ * rules require, and the simulator is headless.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class EventSimulator
+{
+    // The kinds of event, in the order they are handled at equal times.
+    public static final int OLD_AGE = 0;
+    public static final int STARVATION = 1;
+    public static final int BREEDING_AGE = 2;
+    public static final int MOVE = 3;
+
+    // The default width for the grid.
+    private static final int DEFAULT_WIDTH = 120;
+
+    // The default depth of the grid.
+    private static final int DEFAULT_DEPTH = 80;
+
+    // The initial number of animals that can be stored.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // A shared random number generator, as used by the animal classes.
+    private static final Random rand = Randomizer.getRandom();
+
+    // The characteristics of each species, indexed by species id.
+    private final Species[] species;
+
+    // The current state of the field; cells hold animal ids.
+    private final CompactField field;
+
+    // The events still to happen.
+    private final EventQueue queue;
+
+    // The number of live animals of each species.
+    private final int[] counts;
+
+    // Scratch space for adjacent and free cells.
+    private final int[] adjacent, free;
+
+    // The species id of each animal.
+    private int[] animalSpecies;
+    // The cell of each animal, or CompactField.EMPTY once dead.
+    private int[] cells;
+    // The time each animal was born; negative for a random starting age.
+    private long[] birthTimes;
+    // The time each hunting animal will starve unless it eats.
+    private long[] starvationTimes;
+    // Whether each animal has reached its breeding age.
+    private boolean[] fertile;
+    // Incremented when an animal dies, so its pending events are ignored.
+    private int[] versions;
+
+    // Ids of dead animals, ready for reuse.
+    private int[] freeIds;
+    private int freeIdCount;
+    // The number of ids ever handed out.
+    private int idCount;
+
+    // The current simulation time.
+    private long time;
+    // The number of events that have been handled.
+    private long eventsHandled;
+
+    /**
+     * Construct a simulation field with default size.
+     * @param prototypes One animal of each species to simulate.
+     */
+    public EventSimulator(List<? extends Animal> prototypes) {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, prototypes);
+    }
+
+    /**
+     * Create a simulation field with the given size.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param prototypes One animal of each species to simulate.
+     */
+    public EventSimulator(int depth, int width, List<? extends Animal> prototypes) {
+        if(width <= 0 || depth <= 0) {
+            System.out.println("The dimensions must be greater than zero.");
+            System.out.println("Using default values.");
+            depth = DEFAULT_DEPTH;
+            width = DEFAULT_WIDTH;
+        }
+
+        species = Species.fromPrototypes(prototypes).toArray(new Species[0]);
+        field = new CompactField(depth, width);
+        queue = new EventQueue();
+        counts = new int[species.length];
+        adjacent = new int[CompactField.MAX_ADJACENT];
+        free = new int[CompactField.MAX_ADJACENT];
+        animalSpecies = new int[INITIAL_CAPACITY];
+        cells = new int[INITIAL_CAPACITY];
+        birthTimes = new long[INITIAL_CAPACITY];
+        starvationTimes = new long[INITIAL_CAPACITY];
+        fertile = new boolean[INITIAL_CAPACITY];
+        versions = new int[INITIAL_CAPACITY];
+        freeIds = new int[INITIAL_CAPACITY];
+        reset();
+    }
+
+    /**
+     * Handle every event up to and including the given time.
+     * @param endTime The time to run until.
+     */
+    public void runUntil(long endTime) {
+        while(!queue.isEmpty() && queue.peekTime() <= endTime) {
+            handleNextEvent();
+        }
+        if(endTime > time) {
+            time = endTime;
+        }
+    }
+
+    /**
+     * Handle events until none are left, i.e. until every animal is dead.
+     * With a stable population this never returns.
+     */
+    public void runUntilEmpty() {
+        while(!queue.isEmpty()) {
+            handleNextEvent();
+        }
+    }
+
+    /**
+     * Reset the simulation to a starting position.
+     */
+    public void reset() {
+        time = 0;
+        eventsHandled = 0;
+        queue.clear();
+        field.clear();
+        Arrays.fill(counts, 0);
+        Arrays.fill(cells, CompactField.EMPTY);
+        idCount = 0;
+        freeIdCount = 0;
+        populate();
+    }
+
+    /**
+     * Randomly populate the field with animals.
+     */
+    private void populate() {
+        for(int row = 0; row < field.getDepth(); row++) {
+            for(int col = 0; col < field.getWidth(); col++) {
+                int cell = field.cellOf(row, col);
+                for(int id = 0; id < species.length; id++) {
+                    if(rand.nextDouble() <= species[id].getCreationProbability()) {
+                        int age = rand.nextInt(species[id].getMaxAge());
+                        int foodLevel = 0;
+                        if(species[id].isHunter()) {
+                            foodLevel = rand.nextInt(species[id].getMaxFoodLevel());
+                        }
+                        // A later species replaces an earlier one in the same cell.
+                        int occupant = field.getSlotAt(cell);
+                        if(occupant != CompactField.EMPTY) {
+                            setDead(occupant);
+                        }
+                        createAnimal(id, cell, -age, foodLevel);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the next event from the queue and carry it out, unless the
+     * animal it concerns has died or the event has been superseded.
+     */
+    private void handleNextEvent() {
+        queue.removeFirst();
+        time = queue.getTime();
+        int animal = queue.getAgent();
+        if(versions[animal] != queue.getVersion() || cells[animal] == CompactField.EMPTY) {
+            return;
+        }
+        eventsHandled++;
+        switch(queue.getKind()) {
+            case OLD_AGE:
+                setDead(animal);
+                break;
+            case STARVATION:
+                if(starvationTimes[animal] == time) {
+                    setDead(animal);
+                }
+                break;
+            case BREEDING_AGE:
+                fertile[animal] = true;
+                break;
+            case MOVE:
+                move(animal);
+                break;
+        }
+    }
+
+    /**
+     * The animal breeds if it can, then hunts if it is a hunter and
+     * otherwise moves to a free adjacent cell. If it cannot move it
+     * dies of overcrowding.
+     * @param animal The animal to move.
+     */
+    private void move(int animal) {
+        Species s = species[animalSpecies[animal]];
+        giveBirth(animal, s);
+        int newCell = CompactField.EMPTY;
+        if(s.isHunter()) {
+            newCell = findFood(animal, s);
+        }
+        if(newCell == CompactField.EMPTY) {
+            if(field.freeAdjacentCells(cells[animal], free) > 0) {
+                newCell = free[0];
+            }
+        }
+        if(newCell != CompactField.EMPTY) {
+            field.clear(cells[animal]);
+            cells[animal] = newCell;
+            field.place(animal, newCell);
+            queue.add(time + 1, MOVE, animal, versions[animal]);
+        }
+        else {
+            setDead(animal);
+        }
+    }
+
+    /**
+     * Let the animal breed into free adjacent cells.
+     * @param animal The parent.
+     * @param s The parent's species.
+     */
+    private void giveBirth(int animal, Species s) {
+        int freeCount = field.freeAdjacentCells(cells[animal], free);
+        int births = 0;
+        if(fertile[animal] && rand.nextDouble() <= s.getBreedingProbability()) {
+            births = rand.nextInt(s.getMaxLitterSize()) + 1;
+        }
+        for(int b = 0; b < births && b < freeCount; b++) {
+            createAnimal(animalSpecies[animal], free[b], time, s.getMaxFoodLevel());
+        }
+    }
+
+    /**
+     * Look for prey adjacent to the animal. Only the first prey found
+     * is eaten, and the animal's starvation is rescheduled.
+     * @param animal The hunter.
+     * @param s The hunter's species.
+     * @return The cell where food was found, or EMPTY if it wasn't.
+     */
+    private int findFood(int animal, Species s) {
+        int count = field.adjacentCells(cells[animal], adjacent);
+        for(int i = 0; i < count; i++) {
+            int where = adjacent[i];
+            int prey = field.getSlotAt(where);
+            if(prey != CompactField.EMPTY) {
+                int foodValue = s.getFoodValue(animalSpecies[prey]);
+                if(foodValue > 0) {
+                    setDead(prey);
+                    starvationTimes[animal] = time + foodValue;
+                    queue.add(time + foodValue, STARVATION, animal, versions[animal]);
+                    return where;
+                }
+            }
+        }
+        return CompactField.EMPTY;
+    }
+
+    /**
+     * Create an animal, place it in the field and schedule its events.
+     * @param speciesId The species of the animal.
+     * @param cell Where to place the animal.
+     * @param birthTime When the animal was born.
+     * @param foodLevel The animal's food level.
+     */
+    private void createAnimal(int speciesId, int cell, long birthTime, int foodLevel) {
+        int animal = newId();
+        Species s = species[speciesId];
+        animalSpecies[animal] = speciesId;
+        cells[animal] = cell;
+        birthTimes[animal] = birthTime;
+        field.place(animal, cell);
+        counts[speciesId]++;
+
+        int version = versions[animal];
+        // An animal dies once its age exceeds the maximum.
+        queue.add(birthTime + s.getMaxAge() + 1, OLD_AGE, animal, version);
+        if(s.isHunter()) {
+            // It must eat before its food level drops to zero.
+            starvationTimes[animal] = time + Math.max(1, foodLevel);
+            queue.add(starvationTimes[animal], STARVATION, animal, version);
+        }
+        long breedingTime = birthTime + s.getBreedingAge();
+        fertile[animal] = breedingTime <= time;
+        if(!fertile[animal]) {
+            queue.add(breedingTime, BREEDING_AGE, animal, version);
+        }
+        queue.add(time + 1, MOVE, animal, version);
+    }
+
+    /**
+     * Indicate that the animal is no longer alive. It is removed from
+     * the field, and its pending events will be ignored.
+     * @param animal The animal.
+     */
+    private void setDead(int animal) {
+        field.clear(cells[animal]);
+        cells[animal] = CompactField.EMPTY;
+        versions[animal]++;
+        counts[animalSpecies[animal]]--;
+        freeIds[freeIdCount++] = animal;
+    }
+
+    /**
+     * Return an unused animal id, reusing those of dead animals.
+     */
+    private int newId() {
+        if(freeIdCount > 0) {
+            return freeIds[--freeIdCount];
+        }
+        if(idCount == cells.length) {
+            int capacity = cells.length * 2;
+            animalSpecies = Arrays.copyOf(animalSpecies, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+            birthTimes = Arrays.copyOf(birthTimes, capacity);
+            starvationTimes = Arrays.copyOf(starvationTimes, capacity);
+            fertile = Arrays.copyOf(fertile, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            freeIds = Arrays.copyOf(freeIds, capacity);
+        }
+        return idCount++;
+    }
+
+    /**
+     * @return The current simulation time.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return The number of events that have been handled.
+     */
+    public long getEventsHandled() {
+        return eventsHandled;
+    }
+
+    /**
+     * @return The number of events still to happen, including those
+     *         of animals that have since died.
+     */
+    public int getPendingEvents() {
+        return queue.size();
+    }
+
+    /**
+     * Return the number of live animals of a species.
+     * @param speciesId The species id; its index in the prototype list.
+     * @return The number of live animals of that species.
+     */
+    public int getCount(int speciesId) {
+        return counts[speciesId];
+    }
+
+    /**
+     * Get details of what is in the field.
+     * @return A string describing what is in the field.
+     */
+    public String getPopulationDetails() {
+        StringBuilder buffer = new StringBuilder();
+        for(int id = 0; id < species.length; id++) {
+            buffer.append(species[id].getName());
+            buffer.append(": ");
+            buffer.append(counts[id]);
+            buffer.append(' ');
+        }
+        return buffer.toString();
+    }
+}
@@ -1,9 +1,13 @@
 package foxes_rabbits_v5;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Represent a rectangular grid of field positions.
@@ -14,13 +18,62 @@ import java.util.Random;
  */
 public class Field
 {
+    // The largest number of locations adjacent to any one location.
+    public static final int MAX_ADJACENT = 8;
+    
     // A random number generator for providing random locations.
     private static final Random rand = Randomizer.getRandom();
     
+    // The row and column offsets of the adjacent locations, in the
+    // order in which they are generated before shuffling.
+    private static final int[] ROW_OFFSETS = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] COL_OFFSETS = { -1, 0, 1, -1, 1, -1, 0, 1 };
+    
+    // Scratch space for the methods that do not take a buffer.
+    private static final ThreadLocal<int[]> scratch =
+        ThreadLocal.withInitial(() -> new int[Neighbourhood.MAX_SIZE]);
+    
     // The depth and width of the field.
     private int depth, width;
-    // Storage for the animals.
-    private Object[][] field;
+    // Storage for the animals, row by row.
+    private Object[] field;
+    // The cell offsets of the adjacent locations, for this width.
+    private int[] cellOffsets;
+    // The cell offsets of each neighbourhood, for this width, indexed
+    // by neighbourhood id.
+    private int[][] neighbourOffsets;
+    // Whether the field wraps around at its edges.
+    private boolean toroidal;
+    // When toroidal, the largest row or column offset in the wrap tables.
+    private int wrapRadius;
+    // When toroidal, the first cell of the row at each row offset from
+    // each row, indexed by (row offset + wrapRadius) * depth + row, and
+    // the column at each column offset from each column, indexed
+    // likewise; both wrap around, so neighbours are found without
+    // bounds checks.
+    private int[] wrappedRowStarts;
+    private int[] wrappedCols;
+    // The population counts, kept up to date by the animals.
+    private FieldStats stats;
+    // Dead animals for reuse, or null if animals are not recycled.
+    private AnimalPool pool;
+    // Receives the events of the animals, or null.
+    private EventJournal journal;
+    // The location of each cell, once asked for, when recycling.
+    private Location[] locations;
+    // The cells changed since the changes were last taken, one bit per
+    // cell, or null if changes are not tracked.
+    private AtomicLongArray changedCells;
+    // The words of changedCells that have a bit set, and how many.
+    private int[] changedWords;
+    private AtomicInteger changedWordCount;
+    // Whether every cell must be taken as changed.
+    private volatile boolean allChanged;
+    // One bit per cell, set if the cell holds an animal, or null if
+    // occupancy planes are not kept.
+    private AtomicLongArray occupiedCells;
+    // The same for each species, indexed by species id.
+    private AtomicLongArray[] speciesCells;
 
     /**
      * Represent a field of the given dimensions.
@@ -29,9 +82,42 @@ public class Field
      */
     public Field(int depth, int width)
     {
+        this(depth, width, true);
+    }
+    
+    /**
+     * Represent a field of the given dimensions, optionally without
+     * storage for the animals. Subclasses that store the animals in
+     * their own way override every method that reads or writes a cell.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param dense True to store every cell in a single array.
+     */
+    protected Field(int depth, int width, boolean dense)
+    {
+        if((long) depth * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many cells: " + depth + "x" + width);
+        }
         this.depth = depth;
         this.width = width;
-        field = new Object[depth][width];
+        if(dense) {
+            field = new Object[depth * width];
+        }
+        cellOffsets = new int[MAX_ADJACENT];
+        for(int i = 0; i < MAX_ADJACENT; i++) {
+            cellOffsets[i] = ROW_OFFSETS[i] * width + COL_OFFSETS[i];
+        }
+        neighbourOffsets = new int[Neighbourhood.count()][];
+        for(int id = 0; id < neighbourOffsets.length; id++) {
+            Neighbourhood neighbourhood = Neighbourhood.get(id);
+            int[] rowOffsets = neighbourhood.getRowOffsets();
+            int[] colOffsets = neighbourhood.getColOffsets();
+            neighbourOffsets[id] = new int[rowOffsets.length];
+            for(int i = 0; i < rowOffsets.length; i++) {
+                neighbourOffsets[id][i] = rowOffsets[i] * width + colOffsets[i];
+            }
+        }
+        stats = new FieldStats();
     }
     
     /**
@@ -39,11 +125,16 @@ public class Field
      */
     public void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                field[row][col] = null;
+        Arrays.fill(field, null);
+        if(occupiedCells != null) {
+            clearPlane(occupiedCells);
+            for(AtomicLongArray plane : speciesCells) {
+                clearPlane(plane);
             }
         }
+        stats.reset();
+        stats.countFinished();
+        markAllChanged();
     }
     
     /**
@@ -52,7 +143,12 @@ public class Field
      */
     public void clear(Location location)
     {
-        field[location.getRow()][location.getCol()] = null;
+        int cell = location.getRow() * width + location.getCol();
+        if(occupiedCells != null) {
+            unmarkOccupied(field[cell], cell);
+        }
+        field[cell] = null;
+        markChanged(cell);
     }
     
     /**
@@ -77,7 +173,13 @@ public class Field
      */
     public void place(Object animal, Location location)
     {
-        field[location.getRow()][location.getCol()] = animal;
+        int cell = location.getRow() * width + location.getCol();
+        if(occupiedCells != null) {
+            unmarkOccupied(field[cell], cell);
+            markOccupied(animal, cell);
+        }
+        field[cell] = animal;
+        markChanged(cell);
     }
     
     /**
@@ -98,7 +200,51 @@ public class Field
      */
     public Object getObjectAt(int row, int col)
     {
-        return field[row][col];
+        return field[row * width + col];
+    }
+    
+    /**
+     * Return the animal in the given cell, if any. Cells are numbered
+     * row by row, as returned by adjacentCells.
+     * @param cell The desired cell.
+     * @return The animal in the given cell, or null if there is none.
+     */
+    public Object getObjectAtCell(int cell)
+    {
+        return field[cell];
+    }
+    
+    /**
+     * Pass every animal in the field to the action, together with its
+     * cell. Empty cells are skipped.
+     * @param action Called with each animal and its cell.
+     */
+    public void forEachObject(ObjIntConsumer<Object> action)
+    {
+        for(int cell = 0; cell < field.length; cell++) {
+            if(field[cell] != null) {
+                action.accept(field[cell], cell);
+            }
+        }
+    }
+    
+    /**
+     * Return the location of the given cell.
+     * @param cell The cell, as returned by adjacentCells.
+     * @return The location of the cell.
+     */
+    public Location locationOf(int cell)
+    {
+        if(locations == null) {
+            return new Location(cell / width, cell % width);
+        }
+        // Locations cannot change, so one per cell can be shared.
+        Location location = locations[cell];
+        if(location == null) {
+            location = new Location(cell / width, cell % width);
+            locations[cell] = location;
+        }
+        return location;
     }
     
     /**
@@ -111,8 +257,9 @@ public class Field
      */
     public Location randomAdjacentLocation(Location location)
     {
-        List<Location> adjacent = adjacentLocations(location);
-        return adjacent.get(0);
+        int[] adjacent = scratch.get();
+        adjacentCells(location, adjacent);
+        return locationOf(adjacent[0]);
     }
     
     /**
@@ -122,11 +269,38 @@ public class Field
      */
     public List<Location> getFreeAdjacentLocations(Location location)
     {
-        List<Location> free = new LinkedList<Location>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
-                free.add(next);
+        int[] free = scratch.get();
+        int count = freeAdjacentCells(location, free);
+        return toLocations(free, count);
+    }
+    
+    /**
+     * Fill the buffer with the free cells adjacent to the given
+     * location, in a random order. Nothing is allocated.
+     * @param location Get cells adjacent to this.
+     * @param buffer Receives the free cells; at least MAX_ADJACENT long.
+     * @return The number of free adjacent cells.
+     */
+    public int freeAdjacentCells(Location location, int[] buffer)
+    {
+        if(occupiedCells != null) {
+            int row = location.getRow();
+            int col = location.getCol();
+            int free = validAdjacentMask(row, col) & ~adjacentMask(occupiedCells, row, col);
+            int count = Integer.bitCount(free);
+            // Take the free cells in a random order.
+            for(int i = 0; i < count; i++) {
+                int bit = nthSetBit(free, count - i > 1 ? rand.nextInt(count - i) : 0);
+                free &= ~(1 << bit);
+                buffer[i] = adjacentCell(row, col, bit);
+            }
+            return count;
+        }
+        int adjacent = adjacentCells(location, buffer);
+        int free = 0;
+        for(int i = 0; i < adjacent; i++) {
+            if(getObjectAtCell(buffer[i]) == null) {
+                buffer[free++] = buffer[i];
             }
         }
         return free;
@@ -142,10 +316,17 @@ public class Field
      */
     public Location freeAdjacentLocation(Location location)
     {
+        if(occupiedCells != null) {
+            int row = location.getRow();
+            int col = location.getCol();
+            int free = validAdjacentMask(row, col) & ~adjacentMask(occupiedCells, row, col);
+            int cell = randomCell(row, col, free);
+            return cell < 0 ? null : locationOf(cell);
+        }
         // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        int[] free = scratch.get();
+        if(freeAdjacentCells(location, free) > 0) {
+            return locationOf(free[0]);
         }
         else {
             return null;
@@ -162,31 +343,615 @@ public class Field
     public List<Location> adjacentLocations(Location location)
     {
         assert location != null : "Null location passed to adjacentLocations";
-        // The list of locations to be returned.
-        List<Location> locations = new LinkedList<Location>();
-        if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
+        if(location == null) {
+            return new ArrayList<Location>();
+        }
+        int[] adjacent = scratch.get();
+        int count = adjacentCells(location, adjacent);
+        return toLocations(adjacent, count);
+    }
+    
+    /**
+     * Fill the buffer with the cells adjacent to the given location, in
+     * a random order. The location itself is not included, and all
+     * cells lie within the grid. Nothing is allocated.
+     * @param location The location from which to generate adjacencies.
+     * @param buffer Receives the adjacent cells; at least MAX_ADJACENT long.
+     * @return The number of adjacent cells.
+     */
+    public int adjacentCells(Location location, int[] buffer)
+    {
+        int row = location.getRow();
+        int col = location.getCol();
+        int cell = row * width + col;
+        int count = 0;
+        if(toroidal) {
+            // Every cell has all its neighbours.
+            for(int i = 0; i < MAX_ADJACENT; i++) {
+                buffer[i] = wrappedRowStarts[(ROW_OFFSETS[i] + wrapRadius) * depth + row]
+                            + wrappedCols[(COL_OFFSETS[i] + wrapRadius) * width + col];
+            }
+            count = MAX_ADJACENT;
+        }
+        else if(row > 0 && row < depth - 1 && col > 0 && col < width - 1) {
+            // Away from the edges every offset is valid.
+            for(int i = 0; i < MAX_ADJACENT; i++) {
+                buffer[i] = cell + cellOffsets[i];
+            }
+            count = MAX_ADJACENT;
+        }
+        else {
+            for(int i = 0; i < MAX_ADJACENT; i++) {
+                int nextRow = row + ROW_OFFSETS[i];
+                int nextCol = col + COL_OFFSETS[i];
+                if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width) {
+                    buffer[count++] = cell + cellOffsets[i];
                 }
             }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
+        }
+        // Shuffle in place. Several other methods rely on the cells
+        // being in a random order.
+        for(int i = count; i > 1; i--) {
+            int j = rand.nextInt(i);
+            int tmp = buffer[i - 1];
+            buffer[i - 1] = buffer[j];
+            buffer[j] = tmp;
+        }
+        return count;
+    }
+    
+    /**
+     * Choose at random an adjacent cell holding an animal of one of the
+     * given species, e.g. the prey in a predator's diet. This needs the
+     * occupancy planes: the candidates are found with a few word loads
+     * and masks per species, and one is chosen with one random number,
+     * without looking at any animal.
+     * @param location The location from which to look.
+     * @param speciesMask A bit set for the id of each species wanted.
+     * @return The cell, or -1 if no adjacent cell holds such an animal.
+     * @throws IllegalStateException If occupancy planes are not kept.
+     */
+    public int randomAdjacentCell(Location location, long speciesMask)
+    {
+        if(occupiedCells == null) {
+            throw new IllegalStateException("Occupancy planes are not kept");
+        }
+        int row = location.getRow();
+        int col = location.getCol();
+        int found = 0;
+        for(long species = speciesMask; species != 0; species &= species - 1) {
+            int id = Long.numberOfTrailingZeros(species);
+            if(id < speciesCells.length) {
+                found |= adjacentMask(speciesCells[id], row, col);
+            }
+        }
+        return randomCell(row, col, found & validAdjacentMask(row, col));
+    }
+    
+    /**
+     * Choose one of the adjacent cells in a mask at random.
+     * @param mask A bit set for each candidate, as from adjacentMask.
+     * @return The cell, or -1 if the mask is empty.
+     */
+    private int randomCell(int row, int col, int mask)
+    {
+        int count = Integer.bitCount(mask);
+        if(count == 0) {
+            return -1;
+        }
+        return adjacentCell(row, col, nthSetBit(mask, count > 1 ? rand.nextInt(count) : 0));
+    }
+    
+    /**
+     * Return a mask of the adjacent cells whose bit is set in a plane:
+     * bit i for the cell at ROW_OFFSETS[i], COL_OFFSETS[i]. Bits for
+     * cells off the edge of the field are undefined; mask them with
+     * validAdjacentMask.
+     * @param plane One bit per cell.
+     */
+    private int adjacentMask(AtomicLongArray plane, int row, int col)
+    {
+        if(!toroidal && row > 0 && row < depth - 1 && col > 0 && col < width - 1) {
+            // Three bits from each of the three rows, the middle one
+            // being the cell itself, which is dropped.
+            int cell = row * width + col;
+            int window = threeBits(plane, cell - width - 1)
+                         | threeBits(plane, cell - 1) << 3
+                         | threeBits(plane, cell + width - 1) << 6;
+            return (window & 0xF) | (window >>> 1 & 0xF0);
+        }
+        int mask = 0;
+        for(int i = 0; i < MAX_ADJACENT; i++) {
+            int nextRow = row + ROW_OFFSETS[i];
+            int nextCol = col + COL_OFFSETS[i];
+            if(toroidal || (nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width)) {
+                int cell = adjacentCell(row, col, i);
+                mask |= (int) (plane.get(cell >>> 6) >>> cell & 1) << i;
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Return a mask of the adjacent cells that lie within the field, in
+     * the order of adjacentMask.
+     */
+    private int validAdjacentMask(int row, int col)
+    {
+        int mask = 0xFF;
+        if(!toroidal) {
+            if(row == 0) {
+                mask &= 0xF8;
+            }
+            if(row == depth - 1) {
+                mask &= 0x1F;
+            }
+            if(col == 0) {
+                mask &= 0xD6;
+            }
+            if(col == width - 1) {
+                mask &= 0x6B;
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Return the cell adjacent to a location at ROW_OFFSETS[i],
+     * COL_OFFSETS[i], which must lie within the field.
+     */
+    private int adjacentCell(int row, int col, int i)
+    {
+        if(toroidal) {
+            return wrappedRowStarts[(ROW_OFFSETS[i] + wrapRadius) * depth + row]
+                   + wrappedCols[(COL_OFFSETS[i] + wrapRadius) * width + col];
+        }
+        return row * width + col + cellOffsets[i];
+    }
+    
+    /**
+     * Return the bits of a plane for three cells in a row.
+     * @param first The first of the cells.
+     */
+    private static int threeBits(AtomicLongArray plane, int first)
+    {
+        int word = first >>> 6;
+        int shift = first & 63;
+        long bits = plane.get(word) >>> shift;
+        if(shift > 61) {
+            // The cells run into the next word.
+            bits |= plane.get(word + 1) << (64 - shift);
+        }
+        return (int) bits & 7;
+    }
+    
+    /**
+     * Return the index of the set bit of a mask after n others.
+     */
+    private static int nthSetBit(int mask, int n)
+    {
+        for(int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+    
+    /**
+     * Fill the buffer with the cells in the given neighbourhood of a
+     * location, in the neighbourhood's order. The location itself is not
+     * included, and all cells lie within the grid. Take the cells in a
+     * random order with takeRandomCell, which lets a search stop at the
+     * first cell it wants without shuffling the rest. Nothing is
+     * allocated.
+     * @param location The location at the centre of the neighbourhood.
+     * @param neighbourhood The neighbourhood.
+     * @param buffer Receives the cells; at least neighbourhood.size() long.
+     * @return The number of cells.
+     * @throws IllegalStateException If the field is toroidal and too
+     *         small for the radius of the neighbourhood.
+     */
+    public int neighbourCells(Location location, Neighbourhood neighbourhood, int[] buffer)
+    {
+        int row = location.getRow();
+        int col = location.getCol();
+        int radius = neighbourhood.getRadius();
+        int size = neighbourhood.size();
+        int[] rowOffsets = neighbourhood.getRowOffsets();
+        int[] colOffsets = neighbourhood.getColOffsets();
+        int count = 0;
+        if(toroidal) {
+            if(radius > wrapRadius) {
+                throw new IllegalStateException("The field is too small to wrap a radius of " + radius);
+            }
+            for(int i = 0; i < size; i++) {
+                buffer[i] = wrappedRowStarts[(rowOffsets[i] + wrapRadius) * depth + row]
+                            + wrappedCols[(colOffsets[i] + wrapRadius) * width + col];
+            }
+            count = size;
+        }
+        else if(row >= radius && row < depth - radius && col >= radius && col < width - radius) {
+            // Away from the edges every offset is valid.
+            int cell = row * width + col;
+            int[] offsets = neighbourOffsets[neighbourhood.getId()];
+            for(int i = 0; i < size; i++) {
+                buffer[i] = cell + offsets[i];
+            }
+            count = size;
+        }
+        else {
+            for(int i = 0; i < size; i++) {
+                int nextRow = row + rowOffsets[i];
+                int nextCol = col + colOffsets[i];
+                if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width) {
+                    buffer[count++] = nextRow * width + nextCol;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Take a cell at random from the first cells of a buffer, moving it
+     * to the last of them. Taking cells with remaining counting down
+     * from the number of cells visits them in a random order, one
+     * random number per cell taken.
+     * @param cells The cells.
+     * @param remaining The number of cells not yet taken; at least 1.
+     * @return The cell taken, now at cells[remaining - 1].
+     */
+    public int takeRandomCell(int[] cells, int remaining)
+    {
+        if(remaining > 1) {
+            int j = rand.nextInt(remaining);
+            int cell = cells[j];
+            cells[j] = cells[remaining - 1];
+            cells[remaining - 1] = cell;
+        }
+        return cells[remaining - 1];
+    }
+    
+    /**
+     * Try to find a free location in the given neighbourhood of a
+     * location, choosing among them at random.
+     * @param location The location at the centre of the neighbourhood.
+     * @param neighbourhood The neighbourhood.
+     * @return A free location, or null if there is none.
+     */
+    public Location freeNeighbourLocation(Location location, Neighbourhood neighbourhood)
+    {
+        if(neighbourhood == Neighbourhood.MOORE) {
+            // The same random numbers as always, so that runs with the
+            // default neighbourhood are unchanged.
+            return freeAdjacentLocation(location);
+        }
+        int[] cells = scratch.get();
+        for(int left = neighbourCells(location, neighbourhood, cells); left > 0; left--) {
+            int cell = takeRandomCell(cells, left);
+            if(getObjectAtCell(cell) == null) {
+                return locationOf(cell);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Convert the first count cells of a buffer to a list of locations.
+     */
+    private List<Location> toLocations(int[] cells, int count)
+    {
+        List<Location> locations = new ArrayList<Location>(count);
+        for(int i = 0; i < count; i++) {
+            locations.add(locationOf(cells[i]));
         }
         return locations;
     }
 
+    /**
+     * Return the population counts of the field. Animals update them as
+     * they are created and die, so they are always up to date.
+     * @return The statistics of this field.
+     */
+    public FieldStats getStats()
+    {
+        return stats;
+    }
+    
+    /**
+     * Turn the recycling of animals and locations on or off. While it is
+     * on, dead animals released into the field's pool are reused when
+     * animals are created, and each cell's location is created once and
+     * then shared, so a long run settles into allocating next to nothing.
+     * Sharing locations costs one Location per cell of a dense field.
+     * @param recycling True to recycle.
+     */
+    public void setRecycling(boolean recycling)
+    {
+        int cells = depth * width;
+        pool = recycling ? new AnimalPool(cells) : null;
+        locations = recycling && field != null ? new Location[cells] : null;
+    }
+    
+    /**
+     * Make the field wrap around at its edges, or not. In a toroidal
+     * field the top row is next to the bottom one and the left column
+     * to the right one, so every cell has MAX_ADJACENT neighbours.
+     * A neighbourhood of radius r needs a toroidal field at least
+     * 2r + 1 cells deep and wide.
+     * @param toroidal True to wrap around.
+     * @throws IllegalArgumentException If toroidal and the field is less
+     *         than three cells deep or wide, so that a cell would be
+     *         its own neighbour.
+     */
+    public void setToroidal(boolean toroidal)
+    {
+        if(toroidal && (depth < 3 || width < 3)) {
+            throw new IllegalArgumentException("A toroidal field must be at least 3x3");
+        }
+        this.toroidal = toroidal;
+        if(toroidal) {
+            // Wrap as far as a neighbourhood can reach without a cell
+            // being its own neighbour.
+            wrapRadius = Math.min(Neighbourhood.MAX_RADIUS, (Math.min(depth, width) - 1) / 2);
+            int offsets = 2 * wrapRadius + 1;
+            wrappedRowStarts = new int[offsets * depth];
+            wrappedCols = new int[offsets * width];
+            for(int offset = -wrapRadius; offset <= wrapRadius; offset++) {
+                for(int row = 0; row < depth; row++) {
+                    wrappedRowStarts[(offset + wrapRadius) * depth + row] = Math.floorMod(row + offset, depth) * width;
+                }
+                for(int col = 0; col < width; col++) {
+                    wrappedCols[(offset + wrapRadius) * width + col] = Math.floorMod(col + offset, width);
+                }
+            }
+        }
+        else {
+            wrapRadius = 0;
+            wrappedRowStarts = null;
+            wrappedCols = null;
+        }
+    }
+    
+    /**
+     * @return True if the field wraps around at its edges.
+     */
+    public boolean isToroidal()
+    {
+        return toroidal;
+    }
+    
+    /**
+     * Turn the tracking of changed cells on or off. While it is on, the
+     * field remembers which cells have had an animal placed in or
+     * cleared from them, so that a view can redraw just those. It costs
+     * one bit per cell.
+     * @param tracking True to track changes.
+     */
+    public void setChangeTracking(boolean tracking)
+    {
+        if(tracking && changedCells == null) {
+            int words = (int) (((long) depth * width + 63) / 64);
+            changedCells = new AtomicLongArray(words);
+            changedWords = new int[words];
+            changedWordCount = new AtomicInteger();
+            allChanged = true;
+        }
+        else if(!tracking) {
+            changedCells = null;
+            changedWords = null;
+            changedWordCount = null;
+        }
+    }
+    
+    /**
+     * @return True if changed cells are being tracked.
+     */
+    public boolean isTrackingChanges()
+    {
+        return changedCells != null;
+    }
+    
+    /**
+     * Keep occupancy planes, or stop keeping them: one bit per cell for
+     * whether it holds an animal, and one per cell and species for
+     * whether it holds an animal of that species. While they are kept,
+     * freeAdjacentCells, freeAdjacentLocation and randomAdjacentCell
+     * read a few words of the planes rather than the animals in eight
+     * cells, and choose among the candidates with fewer random
+     * numbers; the choices are as random as before, but not the same
+     * ones. The planes cost a bit per cell for each species and one
+     * more, and make placing and clearing an animal dearer. They are
+     * built when first switched on, and clear empties them in place.
+     * @param planes True to keep occupancy planes.
+     * @throws IllegalStateException If the field does not store every
+     *         cell in a single array, e.g. a SparseField.
+     */
+    public void setOccupancyPlanes(boolean planes)
+    {
+        if(!planes) {
+            occupiedCells = null;
+            speciesCells = null;
+            return;
+        }
+        if(field == null) {
+            throw new IllegalStateException("Occupancy planes need a dense field");
+        }
+        if(occupiedCells != null) {
+            // The planes are already kept up to date.
+            return;
+        }
+        int words = (field.length + 63) / 64;
+        AtomicLongArray[] species = new AtomicLongArray[SpeciesRegistry.getDefault().size()];
+        for(int id = 0; id < species.length; id++) {
+            species[id] = new AtomicLongArray(words);
+        }
+        speciesCells = species;
+        occupiedCells = new AtomicLongArray(words);
+        for(int cell = 0; cell < field.length; cell++) {
+            if(field[cell] != null) {
+                markOccupied(field[cell], cell);
+            }
+        }
+    }
+    
+    /**
+     * @return True if occupancy planes are kept.
+     */
+    public boolean hasOccupancyPlanes()
+    {
+        return occupiedCells != null;
+    }
+    
+    /**
+     * Set the bits of an animal's cell in the occupancy planes. Safe to
+     * call from several threads.
+     * @param animal The animal, or null.
+     * @param cell Its cell.
+     */
+    private void markOccupied(Object animal, int cell)
+    {
+        if(animal != null) {
+            setBit(occupiedCells, cell, true);
+            int id = animal instanceof Animal ? ((Animal) animal).getSpeciesId() : -1;
+            if(id >= 0 && id < speciesCells.length) {
+                setBit(speciesCells[id], cell, true);
+            }
+        }
+    }
+    
+    /**
+     * Clear the bits of an animal's cell in the occupancy planes. Safe
+     * to call from several threads.
+     * @param animal The animal, or null.
+     * @param cell Its cell.
+     */
+    private void unmarkOccupied(Object animal, int cell)
+    {
+        if(animal != null) {
+            setBit(occupiedCells, cell, false);
+            int id = animal instanceof Animal ? ((Animal) animal).getSpeciesId() : -1;
+            if(id >= 0 && id < speciesCells.length) {
+                setBit(speciesCells[id], cell, false);
+            }
+        }
+    }
+    
+    /**
+     * Clear every bit of a plane, a word at a time.
+     */
+    private static void clearPlane(AtomicLongArray plane)
+    {
+        for(int word = 0; word < plane.length(); word++) {
+            plane.set(word, 0);
+        }
+    }
+    
+    /**
+     * Set or clear a cell's bit in a plane. Tiles stepped in parallel
+     * share words, so the bit is changed atomically.
+     */
+    private static void setBit(AtomicLongArray plane, int cell, boolean set)
+    {
+        if(set) {
+            plane.getAndAccumulate(cell >>> 6, 1L << cell, (bits, bit) -> bits | bit);
+        }
+        else {
+            plane.getAndAccumulate(cell >>> 6, 1L << cell, (bits, bit) -> bits & ~bit);
+        }
+    }
+    
+    /**
+     * Pass every cell changed since the changes were last taken to the
+     * action, in no particular order, and forget them. Must not be
+     * called while animals are being placed. Changes can be taken by
+     * only one user of the field, e.g. its view.
+     * @param action Called with each changed cell.
+     * @return False if every cell must be taken as changed, because
+     *         changes were not tracked or the whole field was cleared;
+     *         the action is not called then.
+     */
+    public boolean takeChanges(IntConsumer action)
+    {
+        if(changedCells == null) {
+            return false;
+        }
+        int words = changedWordCount.getAndSet(0);
+        boolean all = allChanged;
+        allChanged = false;
+        for(int i = 0; i < words; i++) {
+            int word = changedWords[i];
+            long bits = changedCells.getAndSet(word, 0);
+            while(!all && bits != 0) {
+                action.accept(word * 64 + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return !all;
+    }
+    
+    /**
+     * Remember that every cell may have changed, e.g. because the whole
+     * field has been cleared.
+     */
+    protected void markAllChanged()
+    {
+        allChanged = true;
+    }
+    
+    /**
+     * Remember that an animal has been placed in or cleared from a cell,
+     * if changes are being tracked. Safe to call from several threads.
+     * @param cell The cell.
+     */
+    protected void markChanged(int cell)
+    {
+        AtomicLongArray changed = changedCells;
+        if(changed != null) {
+            int word = cell >>> 6;
+            long bit = 1L << cell;
+            if((changed.get(word) & bit) == 0
+               && changed.getAndAccumulate(word, bit, (bits, set) -> bits | set) == 0) {
+                changedWords[changedWordCount.getAndIncrement()] = word;
+            }
+        }
+    }
+    
+    /**
+     * Return the pool of dead animals for reuse.
+     * @return The pool, or null if animals are not recycled.
+     */
+    AnimalPool getAnimalPool()
+    {
+        return pool;
+    }
+    
+    /**
+     * Set the journal that the animals in this field publish their
+     * events to.
+     * @param journal The journal, or null to publish no events.
+     */
+    void setJournal(EventJournal journal)
+    {
+        this.journal = journal;
+    }
+    
+    /**
+     * Return the journal that the animals publish their events to.
+     * @return The journal, or null if events are not journalled.
+     */
+    EventJournal getJournal()
+    {
+        return journal;
+    }
+    
+    /**
+     * Called by the simulator once every animal has acted in a step,
+     * and no other thread is using the field. Nothing needs doing here;
+     * a SparseField releases the chunks emptied during the step.
+     */
+    void endStep()
+    {
+    }
+    
     /**
      * Return the depth of the field.
      * @return The depth of the field.
@@ -1,19 +1,25 @@
 package foxes_rabbits_v5;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class collects and provides some statistical data on the state 
  * of a field. It is flexible: it will create and maintain a counter 
  * for any class of object that is found within the field.
  * 
+ * Every field keeps its own statistics up to date as animals are
+ * born and die, so asking it for counts costs nothing more than
+ * reading one counter per species. Other statistics objects count
+ * by scanning the field when a request is made.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2011.07.31
  */
 public class FieldStats
 {
     // Counters for each type of entity (fox, rabbit, etc.) in the simulation.
-    private HashMap<Class, Counter> counters;
+    private Map<Class, Counter> counters;
     // Whether the counters are currently up to date.
     private boolean countsValid;
 
@@ -24,7 +30,7 @@ public class FieldStats
     {
         // Set up a collection for counters for each type of animal that
         // we might find
-        counters = new HashMap<Class, Counter>();
+        counters = new ConcurrentHashMap<Class, Counter>();
         countsValid = true;
     }
 
@@ -67,14 +73,43 @@ public class FieldStats
      */
     public void incrementCount(Class animalClass)
     {
-        Counter count = counters.get(animalClass);
-        if(count == null) {
-            // We do not have a counter for this species yet.
-            // Create one.
-            count = new Counter(animalClass.getName());
-            counters.put(animalClass, count);
+        getCounter(animalClass).increment();
+    }
+    
+    /**
+     * Decrement the count for one class of animal.
+     * @param animalClass The class of animal to decrement.
+     */
+    public void decrementCount(Class<?> animalClass)
+    {
+        getCounter(animalClass).decrement();
+    }
+    
+    /**
+     * Return the current count for one class of animal.
+     * @param animalClass The class of animal.
+     * @param field The field to generate the stats for, if they are
+     *              not up to date.
+     * @return How many animals of that class are in the field.
+     */
+    public int getCount(Class<?> animalClass, Field field)
+    {
+        if(!countsValid) {
+            generateCounts(field);
         }
-        count.increment();
+        Counter count = counters.get(animalClass);
+        return count == null ? 0 : count.getCount();
+    }
+    
+    /**
+     * Return the counter for one class of animal, creating it if
+     * we do not have a counter for this species yet.
+     * @param animalClass The class of animal.
+     * @return The counter for that class.
+     */
+    private Counter getCounter(Class<?> animalClass)
+    {
+        return counters.computeIfAbsent(animalClass, key -> new Counter(key.getName()));
     }
 
     /**
@@ -116,14 +151,7 @@ public class FieldStats
     private void generateCounts(Field field)
     {
         reset();
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    incrementCount(animal.getClass());
-                }
-            }
-        }
+        field.forEachObject((animal, cell) -> incrementCount(animal.getClass()));
         countsValid = true;
     }
 }
\ No newline at end of file
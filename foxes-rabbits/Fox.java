@@ -1,8 +1,6 @@
 package foxes_rabbits_v5;
 
-import java.util.List;
 import java.awt.Color;
-import java.util.Iterator;
 import java.util.Random;
 
 /**
@@ -13,36 +11,35 @@ import java.util.Random;
  * @version 2021.10.30
  */
 
-public class Fox extends Animal
+public class Fox extends Predator
 {
-	// Characteristics shared by all foxes (class variables).
+	// Characteristics shared by all foxes (class variables), read from
+	// the species registry.
+	private static final Species SPECIES = SpeciesRegistry.getDefault().get("Fox");
 	
 	// The age at which a fox can start to breed.
-    private static final int BREEDING_AGE = 12;
+    private static final int BREEDING_AGE = SPECIES.getBreedingAge();
     
     // The age to which a fox can live.
-    private static final int MAX_AGE = 150;
+    private static final int MAX_AGE = SPECIES.getMaxAge();
     
     // The likelihood of a fox breeding.
-    private static final double BREEDING_PROBABILITY = 0.09;
+    private static final double BREEDING_PROBABILITY = SPECIES.getBreedingProbability();
     
     // The likelihood of the creation of a fox.
-    private static final double FOX_CREATION_PROBABILITY = 0.06;
+    private static final double FOX_CREATION_PROBABILITY = SPECIES.getCreationProbability();
     
     // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 2;
+    private static final int MAX_LITTER_SIZE = SPECIES.getMaxLitterSize();
     
-    // The food value of a single rabbit. In effect, this is the number of steps a fox can go before it has to eat again.
-    private static final int RABBIT_FOOD_VALUE = 9;
+    // The food level of a newborn fox.
+    private static final int MAX_FOOD_LEVEL = SPECIES.getMaxFoodLevel();
     
     // A shared random number generator to control breeding.
     private static final Random rand = Randomizer.getRandom();
     
-    // The fox's food level, which is increased by eating rabbits.
-    private int foodLevel;
-    
     // The fox's generic color.
-    private static final Color foxColor = Color.blue;
+    private static final Color foxColor = SPECIES.getColor();
 
     
     /**
@@ -54,79 +51,23 @@ public class Fox extends Animal
      * @param location The location within the field.
      */
     public Fox(boolean randomAge, Field field, Location location) {
-        super(field, location);
-        if(randomAge) {
-            setAge(rand.nextInt(MAX_AGE));
-            foodLevel = rand.nextInt(RABBIT_FOOD_VALUE);
-        }
-        else {
-            setAge(0);
-            foodLevel = RABBIT_FOOD_VALUE;
-        }
+        super(field, location, SPECIES);
+        initialise(randomAge);
     }
     
     /**
-     * This is what the fox does most of the time: it hunts for
-     * rabbits. In the process, it might breed, die of hunger,
-     * or die of old age.
-     * @param field The field currently occupied.
-     * @param newFoxes A list to return newly born foxes.
-     */
-    @Override
-    public void act(List<Animal> newFoxes) {
-        incrementAge();
-        incrementHunger();
-        if(isAlive()) {
-            giveBirth(newFoxes);            
-            // Move towards a source of food if found.
-            Location newLocation = findFood();
-            if(newLocation == null) { 
-                // No food found - try to move to a free location.
-                newLocation = getField().freeAdjacentLocation(getLocation());
-            }
-            // See if it was possible to move.
-            if(newLocation != null) {
-                setLocation(newLocation);
-            }
-            else {
-                setDead();
-            }
-        }
-    }
-    
-    /**
-     * Make this fox more hungry. This could result in the fox's death.
+     * Give the fox its starting age and food level.
+     * @param randomAge If true, the fox will have random age and hunger level.
      */
-    private void incrementHunger() {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
+    private void initialise(boolean randomAge) {
+        if(randomAge) {
+            setAge(rand.nextInt(MAX_AGE));
+            setFoodLevel(rand.nextInt(MAX_FOOD_LEVEL));
         }
-    }
-    
-    /**
-     * Look for rabbits adjacent to the current location.
-     * Only the first live rabbit is eaten.
-     * @return Where food was found, or null if it wasn't.
-     */
-    private Location findFood() {
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Rabbit) {
-                Rabbit rabbit = (Rabbit) animal;
-                if(rabbit.isAlive()) { 
-                    rabbit.setDead();
-                    foodLevel = RABBIT_FOOD_VALUE;
-                    // Remove the dead rabbit from the field.
-                    return where;
-                }
-            }
+        else {
+            setAge(0);
+            setFoodLevel(MAX_FOOD_LEVEL);
         }
-        return null;
     }
     
     
@@ -188,7 +129,12 @@ public class Fox extends Animal
      */
     @Override
     protected Animal createAnimal(boolean b, Field field, Location location) {
-    	return new Fox(b, field, location);
+    	Fox fox = (Fox) reuse(field, location);
+    	if(fox == null) {
+    		return new Fox(b, field, location);
+    	}
+    	fox.initialise(b);
+    	return fox;
     }
     
     /**
@@ -0,0 +1,133 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values, such as step times in nanoseconds,
+ * in the style of an HDR histogram: values below 64 are counted exactly,
+ * and each power of two above that is split into 64 equal buckets, so
+ * any value is recorded to within about 1.6% using a fixed array of
+ * counts, whatever the range of values.
+ *
+ * The histogram is not thread safe.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class LatencyHistogram
+{
+    // Each power of two is split into 2^SUB_BUCKET_BITS buckets.
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // The number of values recorded in each bucket.
+    private final long[] counts;
+    // The number of values recorded, their sum and the largest.
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram()
+    {
+        counts = new long[(Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    }
+
+    /**
+     * Record a value. Negative values are recorded as zero.
+     * @param value The value to record.
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Return the value below which the given percentage of recorded
+     * values fall, to within the precision of the histogram.
+     * @param percentile The percentage, from 0 to 100.
+     * @return The value, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if(totalCount == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for(int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if(seen >= wanted) {
+                return Math.min(highestValueIn(index), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if there is none.
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * @return The mean of the values recorded, or 0 if there are none.
+     */
+    public double getMean()
+    {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Forget every value recorded.
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Return the bucket counting the given value.
+     */
+    private static int indexOf(long value)
+    {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top SUB_BUCKET_BITS + 1 bits of the value.
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Return the largest value counted by the given bucket.
+     */
+    private static long highestValueIn(int index)
+    {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
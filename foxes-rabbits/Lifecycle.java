@@ -0,0 +1,123 @@
+package foxes_rabbits_v5;
+
+/**
+ * Age the animals of a CompactPopulation by one step in a single pass
+ * over its columns: every age goes up by one, every hunter's food level
+ * goes down by one, and the animals that die of old age or hunger are
+ * marked in a column of flags. The simulation then lets the marked animals
+ * die when their turn comes, so the results are the same as aging each
+ * animal as it acts.
+ *
+ * Ages, food levels and maximum ages are held in 16 bits, so a species
+ * can live to at most Short.MAX_VALUE steps.
+ *
+ * This class does the work one slot at a time. When the
+ * jdk.incubator.vector module is present, getDefault returns
+ * VectorLifecycle instead, which is compiled from the vector directory
+ * and does the same work several slots at a time. The Gradle build
+ * compiles it into the simulator's jar; with plain javac:
+ *
+ *     javac -encoding UTF-8 -d out *.java
+ *     javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp out -d out vector/*.java
+ *     java --add-modules jdk.incubator.vector -cp out ...
+ *
+ * Without the module, or with -Dfoxes_rabbits_v5.vector=false, the
+ * slot-at-a-time pass is used.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class Lifecycle
+{
+    // The class of the vectorised lifecycle.
+    private static final String VECTOR_CLASS = "foxes_rabbits_v5.VectorLifecycle";
+
+    // The system property that turns the vectorised lifecycle off.
+    private static final String VECTOR_PROPERTY = "foxes_rabbits_v5.vector";
+
+    // The lifecycle to use, once chosen.
+    private static Lifecycle defaultLifecycle;
+
+    /**
+     * Create a lifecycle that works one slot at a time.
+     */
+    public Lifecycle()
+    {
+    }
+
+    /**
+     * Return the vectorised lifecycle if it can be loaded and is not
+     * turned off, or else the one that works a slot at a time.
+     * @return The lifecycle.
+     */
+    public static synchronized Lifecycle getDefault()
+    {
+        if(defaultLifecycle == null) {
+            Lifecycle vector = null;
+            if(!"false".equals(System.getProperty(VECTOR_PROPERTY))) {
+                vector = getVector();
+            }
+            defaultLifecycle = vector != null ? vector : new Lifecycle();
+        }
+        return defaultLifecycle;
+    }
+
+    /**
+     * Load the vectorised lifecycle.
+     * @return The lifecycle, or null if it or the jdk.incubator.vector
+     *         module is not available.
+     */
+    public static Lifecycle getVector()
+    {
+        try {
+            return (Lifecycle) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        }
+        catch(ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The name of the lifecycle, for reports.
+     */
+    public String getName()
+    {
+        return "scalar";
+    }
+
+    /**
+     * Age the animals in slots 0 to size - 1 by one step.
+     * @param species The species id of each slot.
+     * @param ages The age of each slot; increased by one.
+     * @param foodLevels The food level of each slot; decreased by the
+     *                   hunger of its species.
+     * @param size The number of slots.
+     * @param maxAges The age to which each species can live, by id,
+     *                from 1 to Short.MAX_VALUE.
+     * @param hunger 1 for each species that hunts and can starve, and 0
+     *               for the others, by id.
+     * @param dying Receives 1 for each slot whose animal dies, else 0.
+     */
+    public void advance(byte[] species, short[] ages, short[] foodLevels, int size,
+                        short[] maxAges, short[] hunger, byte[] dying)
+    {
+        advance(species, ages, foodLevels, 0, size, maxAges, hunger, dying);
+    }
+
+    /**
+     * Age the animals in slots from to to - 1 by one step, a slot at a
+     * time.
+     */
+    protected final void advance(byte[] species, short[] ages, short[] foodLevels, int from, int to,
+                                 short[] maxAges, short[] hunger, byte[] dying)
+    {
+        for(int slot = from; slot < to; slot++) {
+            int id = species[slot];
+            int age = ages[slot] + 1;
+            int foodLevel = foodLevels[slot] - hunger[id];
+            ages[slot] = (short) age;
+            foodLevels[slot] = (short) foodLevel;
+            dying[slot] = (byte) (age > maxAges[id] || (hunger[id] != 0 && foodLevel <= 0) ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+
+/**
+ * The cells an animal can sense and move to: those within a radius of
+ * its own cell, measured either as in a Moore neighbourhood (the square
+ * around the cell) or a von Neumann one (the diamond around it). The
+ * cell itself is not included.
+ *
+ * There is one neighbourhood per shape and radius, so they can be
+ * compared with ==. Each holds its row and column offsets in arrays,
+ * which a Field turns into cell offsets for its width once, when it is
+ * created. The offsets are in row-major order, so the Moore
+ * neighbourhood of radius 1 lists the adjacent cells in the same order
+ * as Field.adjacentCells.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public final class Neighbourhood
+{
+    /**
+     * The shapes of neighbourhood.
+     */
+    public enum Shape
+    {
+        // The cells within the radius in both rows and columns.
+        MOORE,
+        // The cells within the radius in rows and columns together.
+        VON_NEUMANN
+    }
+
+    // The largest radius of any neighbourhood.
+    public static final int MAX_RADIUS = 5;
+
+    // The most cells in any neighbourhood.
+    public static final int MAX_SIZE = (2 * MAX_RADIUS + 1) * (2 * MAX_RADIUS + 1) - 1;
+
+    // Every neighbourhood, indexed by id.
+    private static final Neighbourhood[] ALL = new Neighbourhood[Shape.values().length * MAX_RADIUS];
+
+    static {
+        for(Shape shape : Shape.values()) {
+            for(int radius = 1; radius <= MAX_RADIUS; radius++) {
+                int id = idOf(shape, radius);
+                ALL[id] = new Neighbourhood(shape, radius, id);
+            }
+        }
+    }
+
+    // The eight adjacent cells: the neighbourhood of every animal
+    // unless its species says otherwise.
+    public static final Neighbourhood MOORE = of(Shape.MOORE, 1);
+
+    // The shape of the neighbourhood.
+    private final Shape shape;
+    // The largest distance of a cell in the neighbourhood.
+    private final int radius;
+    // The index of the neighbourhood in ALL.
+    private final int id;
+    // The row and column offsets of the cells, in row-major order.
+    private final int[] rowOffsets, colOffsets;
+
+    /**
+     * Create the neighbourhood of the given shape and radius.
+     */
+    private Neighbourhood(Shape shape, int radius, int id)
+    {
+        this.shape = shape;
+        this.radius = radius;
+        this.id = id;
+        int size = 0;
+        int[] rows = new int[MAX_SIZE];
+        int[] cols = new int[MAX_SIZE];
+        for(int row = -radius; row <= radius; row++) {
+            for(int col = -radius; col <= radius; col++) {
+                boolean inside = shape == Shape.MOORE || Math.abs(row) + Math.abs(col) <= radius;
+                if(inside && (row != 0 || col != 0)) {
+                    rows[size] = row;
+                    cols[size] = col;
+                    size++;
+                }
+            }
+        }
+        rowOffsets = Arrays.copyOf(rows, size);
+        colOffsets = Arrays.copyOf(cols, size);
+    }
+
+    /**
+     * Return the neighbourhood of the given shape and radius.
+     * @param shape The shape.
+     * @param radius The radius, from 1 to MAX_RADIUS.
+     * @return The neighbourhood.
+     * @throws IllegalArgumentException If the radius is out of range.
+     */
+    public static Neighbourhood of(Shape shape, int radius)
+    {
+        if(radius < 1 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("The radius must be from 1 to " + MAX_RADIUS + ": " + radius);
+        }
+        return ALL[idOf(shape, radius)];
+    }
+
+    /**
+     * Return the number of neighbourhoods, one more than the largest id.
+     */
+    static int count()
+    {
+        return ALL.length;
+    }
+
+    /**
+     * Return a neighbourhood by id.
+     */
+    static Neighbourhood get(int id)
+    {
+        return ALL[id];
+    }
+
+    /**
+     * @return The shape of the neighbourhood.
+     */
+    public Shape getShape()
+    {
+        return shape;
+    }
+
+    /**
+     * @return The largest distance of a cell in the neighbourhood.
+     */
+    public int getRadius()
+    {
+        return radius;
+    }
+
+    /**
+     * @return The number of cells in the neighbourhood.
+     */
+    public int size()
+    {
+        return rowOffsets.length;
+    }
+
+    /**
+     * @return The index of this neighbourhood, from 0 to count() - 1.
+     */
+    int getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The row offsets of the cells; not to be changed.
+     */
+    int[] getRowOffsets()
+    {
+        return rowOffsets;
+    }
+
+    /**
+     * @return The column offsets of the cells; not to be changed.
+     */
+    int[] getColOffsets()
+    {
+        return colOffsets;
+    }
+
+    @Override
+    public String toString()
+    {
+        return shape + " radius " + radius;
+    }
+
+    /**
+     * Return the id of the neighbourhood of the given shape and radius.
+     */
+    private static int idOf(Shape shape, int radius)
+    {
+        return shape.ordinal() * MAX_RADIUS + radius - 1;
+    }
+}
@@ -0,0 +1,190 @@
+package foxes_rabbits_v5;
+
+import java.util.List;
+
+/**
+ * An animal that hunts. Each step a predator ages and gets hungrier,
+ * may breed, and then eats the first live prey next to it and moves
+ * into its place, or else moves to a free location, or dies of
+ * overcrowding if there is none.
+ *
+ * What a predator eats comes from its species' diet in the species
+ * registry: a bit mask with a bit set for each prey species id, and a
+ * food value per species id. Checking an occupant of a neighbouring
+ * cell is one mask test on its species bit, whatever the number of
+ * prey species.
+ *
+ * A predator hunts and moves within its species' neighbourhood. Beyond
+ * the adjacent cells it visits the cells in a random order and stops at
+ * the first live prey, so a wide neighbourhood costs little when prey
+ * is near.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public abstract class Predator extends Animal
+{
+    // The characteristics of the predator's species.
+    private final Species species;
+    // The species bits of the species it eats.
+    private final long dietMask;
+    // The cells in which it senses prey and to which it moves.
+    private final Neighbourhood neighbourhood;
+    // The predator's food level, which is increased by eating prey.
+    private int foodLevel;
+
+    /**
+     * Create a predator at location in field.
+     * @param field The field currently occupied.
+     * @param location The location within the field.
+     * @param species The characteristics of the predator's species.
+     */
+    public Predator(Field field, Location location, Species species) {
+        super(field, location);
+        this.species = species;
+        dietMask = species.getDietMask();
+        neighbourhood = species.getNeighbourhood();
+    }
+
+    /**
+     * This is what a predator does most of the time: it hunts for
+     * prey. In the process, it might breed, die of hunger,
+     * or die of old age.
+     * @param newAnimals A list to return newly born animals.
+     */
+    @Override
+    public void act(List<Animal> newAnimals) {
+        incrementAge();
+        incrementHunger();
+        if(isAlive()) {
+            giveBirth(newAnimals);
+            // Move towards a source of food if found.
+            Location newLocation = findFood();
+            if(newLocation == null) {
+                // No food found - try to move to a free location.
+                newLocation = getField().freeNeighbourLocation(getLocation(), neighbourhood);
+            }
+            // See if it was possible to move.
+            if(newLocation != null) {
+                setLocation(newLocation);
+            }
+            else {
+                setDead();
+            }
+        }
+    }
+
+    /**
+     * Make this predator more hungry. This could result in its death.
+     */
+    private void incrementHunger() {
+        foodLevel--;
+        if(foodLevel <= 0) {
+            recordEvent(EventJournal.STARVATION, -1, null);
+            setDead();
+        }
+    }
+
+    /**
+     * Look for prey in the neighbourhood of the current location.
+     * Only the first live prey is eaten.
+     * @return Where food was found, or null if it wasn't.
+     */
+    Location findFood() {
+        Field field = getField();
+        int[] cells = getAdjacentBuffer();
+        if(neighbourhood == Neighbourhood.MOORE && field.hasOccupancyPlanes()) {
+            // The planes tell where the prey is without looking at
+            // the neighbours.
+            int cell = field.randomAdjacentCell(getLocation(), dietMask);
+            if(cell >= 0 && eat(field, cell)) {
+                return field.locationOf(cell);
+            }
+        }
+        else if(neighbourhood == Neighbourhood.MOORE) {
+            // Shuffle the adjacent cells as always, so that runs with
+            // the default neighbourhood are unchanged.
+            int count = field.adjacentCells(getLocation(), cells);
+            for(int i = 0; i < count; i++) {
+                if(eat(field, cells[i])) {
+                    return field.locationOf(cells[i]);
+                }
+            }
+        }
+        else {
+            for(int left = field.neighbourCells(getLocation(), neighbourhood, cells); left > 0; left--) {
+                int cell = field.takeRandomCell(cells, left);
+                if(eat(field, cell)) {
+                    return field.locationOf(cell);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Eat the animal in a cell if it is live prey.
+     * @param field The field.
+     * @param cell The cell.
+     * @return True if there was prey to eat; the predator may then move
+     *         into the cell.
+     */
+    private boolean eat(Field field, int cell) {
+        Animal prey = (Animal) field.getObjectAtCell(cell);
+        if(prey != null && (dietMask & prey.getSpeciesBit()) != 0 && prey.isAlive()) {
+            recordEvent(EventJournal.PREDATION, cell, prey);
+            prey.setDead();
+            foodLevel = species.getFoodValue(prey.getSpeciesId());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Return the food level of a newborn.
+     * @return The food level of a newborn.
+     */
+    @Override
+    protected int getMaxFoodLevel() {
+        return species.getMaxFoodLevel();
+    }
+
+    /**
+     * Return the current food level of the predator.
+     * @return The food level of the predator.
+     */
+    @Override
+    protected int getFoodLevel() {
+        return foodLevel;
+    }
+
+    /**
+     * Set the food level of the predator.
+     * @param foodLevel The food level of the predator.
+     */
+    @Override
+    protected void setFoodLevel(int foodLevel) {
+        this.foodLevel = foodLevel;
+    }
+
+    /**
+     * Return the food value of eating an animal of the given class.
+     * @param preyClass The class of the potential prey.
+     * @return The food value, or 0 if the predator does not eat it.
+     */
+    @Override
+    protected int getFoodValue(Class<?> preyClass) {
+        int preyId = getSpeciesId(preyClass);
+        return preyId < 0 ? 0 : species.getFoodValue(preyId);
+    }
+
+    /**
+     * Return the cells in which the predator senses prey and to which
+     * it moves.
+     * @return The predator's neighbourhood.
+     */
+    @Override
+    protected Neighbourhood getNeighbourhood() {
+        return neighbourhood;
+    }
+}
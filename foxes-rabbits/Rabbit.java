@@ -13,28 +13,33 @@ import java.util.Random;
  */
 public class Rabbit extends Animal
 {
-	// Characteristics shared by all rabbits (class variables).
+	// Characteristics shared by all rabbits (class variables), read
+	// from the species registry.
+	private static final Species SPECIES = SpeciesRegistry.getDefault().get("Rabbit");
 	
 	// The age at which a rabbit can start to breed.
-    private static final int BREEDING_AGE = 5;
+    private static final int BREEDING_AGE = SPECIES.getBreedingAge();
     
     // The age to which a rabbit can live.
-    private static final int MAX_AGE = 40;
+    private static final int MAX_AGE = SPECIES.getMaxAge();
     
     // The likelihood of a rabbit breeding.
-    private static final double BREEDING_PROBABILITY = 0.12;
+    private static final double BREEDING_PROBABILITY = SPECIES.getBreedingProbability();
     
     // The likelihood of the creation of a rabbit.
-    private static final double RABBIT_CREATION_PROBABILITY = 0.08; 
+    private static final double RABBIT_CREATION_PROBABILITY = SPECIES.getCreationProbability();
     
     // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 4;
+    private static final int MAX_LITTER_SIZE = SPECIES.getMaxLitterSize();
+    
+    // The cells to which a rabbit moves.
+    private static final Neighbourhood NEIGHBOURHOOD = SPECIES.getNeighbourhood();
     
     // A shared random number generator to control breeding.
     private static final Random rand = Randomizer.getRandom();
     
     // The rabbit's generic color.
-    private static final Color rabbitColor = Color.orange;
+    private static final Color rabbitColor = SPECIES.getColor();
     
     
     /**
@@ -47,6 +52,14 @@ public class Rabbit extends Animal
      */
     public Rabbit(boolean randomAge, Field field, Location location) {
         super(field, location);
+        initialise(randomAge);
+    }
+    
+    /**
+     * Give the rabbit its starting age.
+     * @param randomAge If true, the rabbit will have a random age.
+     */
+    private void initialise(boolean randomAge) {
         setAge(0);
         if(randomAge) {
             setAge(rand.nextInt(MAX_AGE));
@@ -64,7 +77,7 @@ public class Rabbit extends Animal
         if(isAlive()) {
             giveBirth(newRabbits);            
             // Try to move into a free location.
-            Location newLocation = getField().freeAdjacentLocation(getLocation());
+            Location newLocation = getField().freeNeighbourLocation(getLocation(), NEIGHBOURHOOD);
             if(newLocation != null) {
                 setLocation(newLocation);
             }
@@ -122,6 +135,15 @@ public class Rabbit extends Animal
     	return MAX_LITTER_SIZE;
     }
     
+    /**
+     * Return the cells to which a rabbit moves.
+     * @return The neighbourhood of rabbit.
+     */
+    @Override
+    protected Neighbourhood getNeighbourhood() {
+    	return NEIGHBOURHOOD;
+    }
+    
     /**
      * Create a rabbit.
      * @param b True if to create a rabbit; false otherwise.
@@ -131,7 +153,12 @@ public class Rabbit extends Animal
      */
     @Override
     protected Animal createAnimal(boolean b, Field field, Location location) {
-    	return new Rabbit(b, field, location);
+    	Rabbit rabbit = (Rabbit) reuse(field, location);
+    	if(rabbit == null) {
+    		return new Rabbit(b, field, location);
+    	}
+    	rabbit.initialise(b);
+    	return rabbit;
     }
     
     /**
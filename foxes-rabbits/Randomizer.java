@@ -1,10 +1,21 @@
 package foxes_rabbits_v5;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provide control over the randomization of the simulation.
- * 
+ *
+ * Besides the shared generator, the randomizer can hand out separate
+ * streams for parts of the simulation that run concurrently. While a
+ * stream is bound to a thread, every draw that thread makes from the
+ * shared generator comes from the stream instead, so results depend
+ * only on the seed and the stream's keys, not on how threads interleave.
+ *
+ * Neither the shared generator nor the streams synchronize: the shared
+ * generator produces the same numbers as java.util.Random without its
+ * atomic seed, and streams are xoroshiro128** generators.
+ *
  * @author David J. Barnes and Michael Kölling
  * @version 2011.07.31
  */
@@ -12,8 +23,14 @@ public class Randomizer
 {
     // The default seed for control of randomization.
     private static final int SEED = 1111;
+    // The seed in use, for the shared generator and for streams.
+    private static volatile long seed = SEED;
+    // The stream bound to each thread, if any.
+    private static final ThreadLocal<StreamRandom> boundStream = new ThreadLocal<StreamRandom>();
+    // The number of threads that currently have a stream bound.
+    private static final AtomicInteger bindings = new AtomicInteger();
     // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
+    private static final Random rand = new SharedRandom(SEED);
     // Determine whether a shared random generator is to be provided.
     private static final boolean useShared = true;
 
@@ -37,7 +54,7 @@ public class Randomizer
             return new Random();
         }
     }
-    
+
     /**
      * Reset the randomization.
      * This will have no effect if randomization is not through
@@ -46,7 +63,219 @@ public class Randomizer
     public static void reset()
     {
         if(useShared) {
-            rand.setSeed(SEED);
+            rand.setSeed(seed);
+        }
+    }
+
+    /**
+     * Change the seed and reset the shared generator with it. Streams
+     * created afterwards are derived from the new seed.
+     * @param newSeed The seed to use.
+     */
+    public static void setSeed(long newSeed)
+    {
+        seed = newSeed;
+        reset();
+    }
+
+    /**
+     * @return The seed in use.
+     */
+    public static long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Return the state of the shared generator, so that it can be saved
+     * in a checkpoint.
+     * @return The state of the shared generator.
+     */
+    static long getState()
+    {
+        return ((SharedRandom) rand).state;
+    }
+
+    /**
+     * Restore the seed and the state of the shared generator from a
+     * checkpoint. Draws continue exactly where they left off.
+     * @param newSeed The seed in use when the checkpoint was taken.
+     * @param state The state of the shared generator.
+     */
+    static void restore(long newSeed, long state)
+    {
+        seed = newSeed;
+        ((SharedRandom) rand).state = state;
+    }
+
+    /**
+     * Provide a random stream for one part of the simulation, e.g. one
+     * animal or one run. Streams created with the same seed and key
+     * produce the same numbers, and do not share any state.
+     * @param key The key of the stream.
+     * @return A new random stream.
+     */
+    public static Random stream(long key)
+    {
+        return new StreamRandom(seed ^ mix(key));
+    }
+
+    /**
+     * Provide a random stream for one part of the simulation. Streams
+     * created with the same seed and keys produce the same numbers.
+     * @param key1 The first key, e.g. a step number.
+     * @param key2 The second key, e.g. a tile number.
+     * @return A new random stream.
+     */
+    public static Random stream(long key1, long key2)
+    {
+        return new StreamRandom(mix(seed ^ mix(key1)) ^ key2);
+    }
+
+    /**
+     * Bind a stream to the current thread. Until unbind is called, draws
+     * from the shared generator on this thread come from the stream.
+     * @param stream A stream obtained from the stream method.
+     */
+    public static void bind(Random stream)
+    {
+        if(!(stream instanceof StreamRandom)) {
+            throw new IllegalArgumentException("Not a randomizer stream: " + stream);
+        }
+        if(boundStream.get() == null) {
+            bindings.incrementAndGet();
+        }
+        boundStream.set((StreamRandom) stream);
+    }
+
+    /**
+     * Unbind the current thread's stream, if any.
+     */
+    public static void unbind()
+    {
+        if(boundStream.get() != null) {
+            boundStream.remove();
+            bindings.decrementAndGet();
+        }
+    }
+
+    /**
+     * Scramble the bits of a key (the SplitMix64 finalizer).
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The shared generator. It produces the same numbers as
+     * java.util.Random, but keeps its state in a plain field. Draws on a
+     * thread with a bound stream are passed on to the stream.
+     */
+    private static class SharedRandom extends Random
+    {
+        private static final long serialVersionUID = 1L;
+
+        // The multiplier, increment and modulus mask of java.util.Random.
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final long MASK = (1L << 48) - 1;
+
+        // The state of the generator. Set by setSeed from the constructor.
+        private long state;
+
+        /**
+         * Create a generator with the given seed.
+         */
+        SharedRandom(long seed)
+        {
+            super(seed);
+        }
+
+        /**
+         * Set the seed, scrambled just as java.util.Random does.
+         */
+        @Override
+        public synchronized void setSeed(long seed)
+        {
+            super.setSeed(seed);
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        /**
+         * Generate the next random bits, from the bound stream if the
+         * thread has one.
+         */
+        @Override
+        protected int next(int bits)
+        {
+            if(bindings.get() > 0) {
+                StreamRandom stream = boundStream.get();
+                if(stream != null) {
+                    return stream.next(bits);
+                }
+            }
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+    }
+
+    /**
+     * An independent stream of random numbers: a xoroshiro128**
+     * generator seeded through SplitMix64.
+     */
+    private static class StreamRandom extends Random
+    {
+        private static final long serialVersionUID = 1L;
+
+        // The state of the generator; never both zero.
+        private long s0, s1;
+
+        /**
+         * Create a stream from the given seed.
+         */
+        StreamRandom(long seed)
+        {
+            s0 = mix(seed + 0x9e3779b97f4a7c15L);
+            s1 = mix(seed + 2 * 0x9e3779b97f4a7c15L);
+            if(s0 == 0 && s1 == 0) {
+                s1 = 1;
+            }
+        }
+
+        /**
+         * Generate the next random bits.
+         */
+        @Override
+        protected int next(int bits)
+        {
+            return (int) (nextLong() >>> (64 - bits));
+        }
+
+        /**
+         * Generate the next 64 random bits.
+         */
+        @Override
+        public long nextLong()
+        {
+            long a = s0;
+            long b = s1;
+            long result = Long.rotateLeft(a * 5, 7) * 9;
+            b ^= a;
+            s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+            s1 = Long.rotateLeft(b, 37);
+            return result;
+        }
+
+        /**
+         * Generate a double in [0, 1) from 53 random bits.
+         */
+        @Override
+        public double nextDouble()
+        {
+            return (nextLong() >>> 11) * 0x1.0p-53;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package foxes_rabbits_v5;
+
+/**
+ * A listener that is told about the state of the simulation as it runs.
+ * The simulator does not depend on any particular view, so it can run
+ * headless with no listeners at all.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public interface SimulationListener
+{
+    /**
+     * Show the current status of the field.
+     * @param step Which iteration step it is.
+     * @param field The field whose status is to be displayed.
+     */
+    void showStatus(int step, Field field);
+
+    /**
+     * Return how often this listener wants to be notified. An interval
+     * of n means every n-th step, and one below 1 means every step. The
+     * starting state after a reset is always shown.
+     * @return The notification interval in steps.
+     */
+    default int getNotificationInterval() {
+        return 1;
+    }
+}
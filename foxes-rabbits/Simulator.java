@@ -1,15 +1,17 @@
 package foxes_rabbits_v5;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
 
 /**
  * A simple predator-prey simulator, based on a rectangular field
  * containing rabbits and foxes.
  * 
- * @author David J. Barnes and Michael Klling and Izhar Ali
+ * @author David J. Barnes and Michael Kölling and Izhar Ali
  * @version 2021.11.02
  */
 public class Simulator
@@ -25,15 +27,30 @@ public class Simulator
     // List of animals in the field.
     private List<Animal> animals;
     
+    // Receives the animals born during a step; reused every step.
+    private List<Animal> newAnimals;
+    
     // The current state of the field.
     private Field field;
     
     // The current step of the simulation.
     private int step;
     
-    // A graphical view of the simulation.
+    // A graphical view of the simulation, or null when running headless.
     private SimulatorView view;
     
+    // Listeners told about the state of the simulation as it runs.
+    private List<SimulationListener> listeners;
+    
+    // Runs each step in parallel tiles, or null to step on this thread.
+    private TiledStepper tiledStepper;
+    
+    // Saves checkpoints while the simulation runs, or null.
+    private Checkpoint.Autosave autosave;
+    
+    // Times the steps when switched on.
+    private StepMetrics metrics;
+    
     // Animals passed in from the driver class.
     private ArrayList<Animal> driverAnimals;
     
@@ -44,24 +61,242 @@ public class Simulator
         this(DEFAULT_DEPTH, DEFAULT_WIDTH, driverAnimals);
     }
     
+    /**
+     * Construct a simulation field with default size, optionally without
+     * any graphical view.
+     * @param headless True to run without a SimulatorView.
+     */
+    public Simulator(ArrayList<Animal> driverAnimals, boolean headless) {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, driverAnimals, headless);
+    }
+    
     /**
      * Create a simulation field with the given size.
      * @param depth Depth of the field. Must be greater than zero.
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width, ArrayList<Animal> driverAnimals) {
+        this(depth, width, driverAnimals, false);
+    }
+    
+    /**
+     * Create a simulation field with the given size, optionally without
+     * any graphical view. A headless simulator has no listeners until
+     * some are added.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param headless True to run without a SimulatorView.
+     */
+    public Simulator(int depth, int width, ArrayList<Animal> driverAnimals, boolean headless) {
+        this(createField(depth, width), driverAnimals, headless);
+        reset();
+    }
+    
+    /**
+     * Create a simulation of the given field, e.g. a SparseField for a
+     * large world, optionally without any graphical view. The field is
+     * not populated until reset is called, so that a large field can be
+     * populated in one region only.
+     * @param field The field to simulate.
+     * @param headless True to run without a SimulatorView.
+     */
+    public Simulator(Field field, ArrayList<Animal> driverAnimals, boolean headless) {
+        this.driverAnimals = driverAnimals;
+        animals = new ArrayList<Animal>();
+        newAnimals = new ArrayList<Animal>();
+        this.field = field;
+        listeners = new ArrayList<SimulationListener>();
+        metrics = new StepMetrics(field, driverAnimals);
+        if(!headless) {
+            view = new SimulatorView(field.getDepth(), field.getWidth());
+            listeners.add(view);
+        }
+    }
+    
+    /**
+     * Create a field of the given size, or of the default size if the
+     * given one is not valid.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @return The field.
+     */
+    private static Field createField(int depth, int width) {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
             System.out.println("Using default values.");
             depth = DEFAULT_DEPTH;
             width = DEFAULT_WIDTH;
         }
-        
-        this.driverAnimals = driverAnimals;
-        animals = new ArrayList<Animal>();
-        field = new Field(depth, width);
-        view = new SimulatorView(depth, width);
-        reset();
+        return new Field(depth, width);
+    }
+    
+    /**
+     * Add a listener to be told about the state of the simulation.
+     * @param listener The listener to add.
+     */
+    public void addSimulationListener(SimulationListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Run each step on the given number of threads, splitting the field
+     * into tiles of the default size. With a fixed seed the results do
+     * not depend on the number of threads, but they differ from those
+     * of a single-threaded run.
+     * @param threads The number of threads; 1 or less to run each step
+     *                on the calling thread.
+     */
+    public void setParallelism(int threads) {
+        setParallelism(threads, TiledStepper.DEFAULT_TILE_SIZE);
+    }
+    
+    /**
+     * Run each step on the given number of threads, splitting the field
+     * into tiles of the given size.
+     * @param threads The number of threads; 1 or less to run each step
+     *                on the calling thread.
+     * @param tileSize The width and depth of a tile, in cells.
+     */
+    public void setParallelism(int threads, int tileSize) {
+        if(threads > 1 && field.getJournal() != null) {
+            throw new IllegalStateException("An event journal needs the simulation on one thread");
+        }
+        if(tiledStepper != null) {
+            tiledStepper.shutdown();
+            tiledStepper = null;
+        }
+        if(threads > 1) {
+            tiledStepper = new TiledStepper(field, threads, tileSize, largestRadius());
+        }
+    }
+    
+    /**
+     * Return the largest neighbourhood radius of the animals, which
+     * tiles must allow for.
+     */
+    private int largestRadius() {
+        int radius = 1;
+        for(Animal animal : driverAnimals) {
+            radius = Math.max(radius, animal.getNeighbourhood().getRadius());
+        }
+        return radius;
+    }
+    
+    /**
+     * Turn the recycling of dead animals on or off. While it is on, a
+     * long run allocates almost nothing per step; see Field.setRecycling.
+     * @param recycling True to recycle dead animals.
+     */
+    public void setRecycling(boolean recycling) {
+        field.setRecycling(recycling);
+    }
+    
+    /**
+     * Keep occupancy planes in the field, or not, so that the animals
+     * find free cells and prey from bit masks; see
+     * Field.setOccupancyPlanes.
+     * @param planes True to keep occupancy planes.
+     */
+    public void setOccupancyPlanes(boolean planes) {
+        field.setOccupancyPlanes(planes);
+    }
+    
+    /**
+     * Make the field wrap around at its edges, or not, so that animals
+     * at the edges have as many neighbours as any other; see
+     * Field.setToroidal.
+     * @param toroidal True to wrap around.
+     */
+    public void setToroidal(boolean toroidal) {
+        field.setToroidal(toroidal);
+        if(tiledStepper != null) {
+            // The tiles must be laid out to suit the new topology.
+            tiledStepper.shutdown();
+            tiledStepper = new TiledStepper(field, tiledStepper.getThreads(),
+                                            tiledStepper.getTileSize(), tiledStepper.getRadius());
+        }
+    }
+    
+    /**
+     * Set the journal that the animals publish their events to. The
+     * journal needs a single producer, so the simulation must step on
+     * one thread.
+     * @param journal The journal, or null to publish no events. It
+     *                must have been started, or its consumers could
+     *                never make room for more events.
+     * @throws IllegalStateException If steps run in parallel tiles, or
+     *                               the journal has not been started.
+     */
+    public void setJournal(EventJournal journal) {
+        if(journal != null && tiledStepper != null) {
+            throw new IllegalStateException("An event journal needs the simulation on one thread");
+        }
+        if(journal != null && !journal.isStarted()) {
+            throw new IllegalStateException("The event journal must be started first");
+        }
+        field.setJournal(journal);
+    }
+    
+    /**
+     * Stop telling a listener about the state of the simulation.
+     * @param listener The listener to remove.
+     */
+    public void removeSimulationListener(SimulationListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Save the full state of the simulation to a file, so that it can
+     * be continued later with restoreCheckpoint.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveCheckpoint(Path file) throws IOException {
+        Checkpoint.write(captureCheckpoint(), file);
+    }
+    
+    /**
+     * Continue the simulation from a saved checkpoint. The field must be
+     * of the saved size, and the simulator must have been given the same
+     * animals as the one that was saved.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read or does not match.
+     */
+    public void restoreCheckpoint(Path file) throws IOException {
+        step = Checkpoint.restore(Checkpoint.read(file), field, animals, driverAnimals);
+        notifyListeners(true);
+    }
+    
+    /**
+     * Save a checkpoint in the background every so many steps.
+     * @param file The file to save to, or null to stop saving.
+     * @param interval Save every interval steps.
+     */
+    public void setAutosave(Path file, int interval) {
+        if(autosave != null) {
+            removeSimulationListener(autosave);
+            autosave.shutdown();
+            autosave = null;
+        }
+        if(file != null) {
+            autosave = new Checkpoint.Autosave(this, file, interval);
+            addSimulationListener(autosave);
+        }
+    }
+    
+    /**
+     * Encode the current state of the simulation.
+     * @return The encoded state.
+     */
+    ByteBuffer captureCheckpoint() {
+        return Checkpoint.capture(step, field, animals, driverAnimals);
+    }
+    
+    /**
+     * @return The timings of the steps, which are off until enabled.
+     */
+    public StepMetrics getMetrics() {
+        return metrics;
     }
     
     /**
@@ -78,11 +313,62 @@ public class Simulator
      * @param numSteps The number of steps to run for.
      */
     public void simulate(int numSteps) {
-        for(int step = 1; step <= numSteps && view.isViable(field); step++) {
+        for(int step = 1; step <= numSteps && field.getStats().isViable(field); step++) {
             simulateOneStep();
         }
     }
     
+    /**
+     * Run the simulation from its current state until the populations
+     * settle into an equilibrium or a cycle, all but one species dies
+     * out, or the given number of steps have been run.
+     * @param maxSteps The most steps to run for.
+     * @param tolerance The largest change in the mean or standard
+     *                  deviation of a population between windows of
+     *                  steps, as a fraction of its mean, e.g. 0.1.
+     * @return The regime reached, with the populations over the last
+     *         window of steps.
+     */
+    public SteadyStateDetector.Report simulateUntilSteady(int maxSteps, double tolerance) {
+        return simulateUntilSteady(maxSteps, tolerance, SteadyStateDetector.DEFAULT_WINDOW);
+    }
+    
+    /**
+     * Run the simulation from its current state until the populations
+     * settle, all but one species dies out, or the given number of steps
+     * have been run.
+     * @param maxSteps The most steps to run for.
+     * @param tolerance The largest change between windows, as a
+     *                  fraction of the mean.
+     * @param window The number of steps in a window; at least twice
+     *               this many are run before the populations can settle.
+     * @return The regime reached.
+     */
+    public SteadyStateDetector.Report simulateUntilSteady(int maxSteps, double tolerance, int window) {
+        String[] names = new String[driverAnimals.size()];
+        for(int i = 0; i < names.length; i++) {
+            names[i] = driverAnimals.get(i).getClass().getSimpleName();
+        }
+        SteadyStateDetector detector = new SteadyStateDetector(names, window, tolerance);
+        int[] populations = new int[names.length];
+        for(int n = 1; n <= maxSteps; n++) {
+            if(!field.getStats().isViable(field)) {
+                return detector.report(SteadyStateDetector.Regime.EXTINCTION, step);
+            }
+            simulateOneStep();
+            for(int i = 0; i < populations.length; i++) {
+                populations[i] = field.getStats().getCount(driverAnimals.get(i).getClass(), field);
+            }
+            SteadyStateDetector.Regime regime = detector.add(populations);
+            if(regime != null) {
+                return detector.report(regime, step);
+            }
+        }
+        SteadyStateDetector.Regime regime = field.getStats().isViable(field)
+            ? SteadyStateDetector.Regime.TRANSIENT : SteadyStateDetector.Regime.EXTINCTION;
+        return detector.report(regime, step);
+    }
+    
     /**
      * Run the simulation from its current state for a single step.
      * Iterate over the whole field updating the state of each
@@ -90,49 +376,159 @@ public class Simulator
      */
     public void simulateOneStep() {
         step++;
+        EventJournal journal = field.getJournal();
+        if(journal != null) {
+            journal.setStep(step);
+        }
+        boolean timed = metrics.isEnabled();
+        long time = timed ? metrics.startStep() : 0;
 
-        //provide space for newborn animal.
-        List<Animal> newAnimals = new ArrayList<Animal>();
-        //Let all animals act.
-        for(Iterator<Animal> it = animals.iterator(); it.hasNext();) {
-            Animal animal = it.next();
-            animal.act(newAnimals);
-            if(!animal.isAlive()) {
-                it.remove();
+        if(tiledStepper != null) {
+            tiledStepper.step(animals, step);
+            if(timed) {
+                time = recordPhase(StepMetrics.TILES, time);
+            }
+        }
+        else {
+            //Let all animals act. Survivors are moved down over the dead
+            //in the same pass, so removing the dead costs nothing extra.
+            AnimalPool pool = field.getAnimalPool();
+            int size = animals.size();
+            int survivors = 0;
+            for(int i = 0; i < size; i++) {
+                Animal animal = animals.get(i);
+                animal.act(newAnimals);
+                if(timed) {
+                    //One clock read per animal: each is charged the time
+                    //since the previous one finished.
+                    long now = System.nanoTime();
+                    metrics.recordAct(animal.getClass(), now - time);
+                    time = now;
+                }
+                if(animal.isAlive()) {
+                    animals.set(survivors++, animal);
+                }
+                else if(pool != null) {
+                    pool.release(animal);
+                }
+            }
+            animals.subList(survivors, size).clear();
+            //Newborns join after the survivors, so they first act next step.
+            //Adding them one by one avoids the array addAll would copy.
+            for(int i = 0; i < newAnimals.size(); i++) {
+                animals.add(newAnimals.get(i));
+            }
+            newAnimals.clear();
+            if(timed) {
+                time = recordPhase(StepMetrics.MERGE, time);
+            }
+        }
+        field.endStep();
+        notifyListeners(false, timed);
+        if(timed) {
+            metrics.endStep();
+        }
+    }
+    
+    /**
+     * Add the time since the given time to a phase of the step.
+     * @param phase The phase, e.g. StepMetrics.MERGE.
+     * @param start When the phase started.
+     * @return The time now, when the next phase starts.
+     */
+    private long recordPhase(int phase, long start) {
+        long now = System.nanoTime();
+        metrics.recordPhase(phase, now - start);
+        return now;
+    }
+    
+    /**
+     * Tell the listeners about the current state of the field.
+     * @param force True to notify every listener regardless of its interval.
+     */
+    private void notifyListeners(boolean force) {
+        notifyListeners(force, false);
+    }
+    
+    /**
+     * Tell the listeners about the current state of the field.
+     * @param force True to notify every listener regardless of its interval.
+     * @param timed True to time the view as rendering and the others as
+     *              listeners.
+     */
+    private void notifyListeners(boolean force, boolean timed) {
+        for(SimulationListener listener : listeners) {
+            if(force || step % Math.max(1, listener.getNotificationInterval()) == 0) {
+                long start = timed ? System.nanoTime() : 0;
+                listener.showStatus(step, field);
+                if(timed) {
+                    recordPhase(listener == view ? StepMetrics.RENDER : StepMetrics.LISTENERS, start);
+                }
             }
         }
-        animals.addAll(newAnimals);
-        view.showStatus(step, field);
     }
     
     /**
-     * Randomly populate the field with animals.
+     * @return The current state of the field.
      */
-    private void populate() {
+    public Field getField() {
+        return field;
+    }
+    
+    /**
+     * Randomly populate a region of the field with animals. The rest
+     * of the field is left empty.
+     * @param top The first row of the region.
+     * @param left The first column of the region.
+     * @param bottom The row after the last row of the region.
+     * @param right The column after the last column of the region.
+     */
+    private void populate(int top, int left, int bottom, int right) {
     	Random rand = Randomizer.getRandom();
         field.clear();
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
+        for(int row = top; row < bottom; row++) {
+            for(int col = left; col < right; col++) {
             	for(int i = 0; i < driverAnimals.size(); i++) {
             		if (rand.nextDouble() <= driverAnimals.get(i).getAnimalCreationProb()) {
+            			// A later animal replaces an earlier one in the same location.
+            			Object occupant = field.getObjectAt(row, col);
+            			if(occupant instanceof Animal) {
+            				((Animal) occupant).setDead();
+            			}
             			Location location = new Location(row, col);
             			animals.add(driverAnimals.get(i).createAnimal(true, field, location));
             		}
             	}
             }            	
         }
-        animals.forEach(animal -> view.setColor(animal.getClass(), animal.getColor()));
+        if(view != null) {
+            animals.forEach(animal -> view.setColor(animal.getClass(), animal.getColor()));
+        }
     }
         
     /**
      * Reset the simulation to a starting position.
      */
     public void reset() {
+        reset(0, 0, field.getDepth(), field.getWidth());
+    }
+    
+    /**
+     * Reset the simulation to a starting position with animals only in
+     * the given region, e.g. to seed one area of a large sparse field.
+     * @param top The first row of the region.
+     * @param left The first column of the region.
+     * @param regionDepth The number of rows of the region.
+     * @param regionWidth The number of columns of the region.
+     */
+    public void reset(int top, int left, int regionDepth, int regionWidth) {
         step = 0;
         animals.clear();
-        populate();
+        populate(Math.max(0, top), Math.max(0, left),
+                 Math.min(field.getDepth(), top + regionDepth),
+                 Math.min(field.getWidth(), left + regionWidth));
         
-        // Show the starting state in the view.
-        view.showStatus(step, field);
+        // Show the starting state to every listener.
+        notifyListeners(true);
     }
 }
\ No newline at end of file
@@ -2,7 +2,10 @@ package foxes_rabbits_v5;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -13,10 +16,17 @@ import java.util.Map;
  * Colors for each type of species can be defined using the
  * setColor method.
  * 
+ * The simulation thread only takes a snapshot of the field's colors.
+ * A renderer thread draws the latest snapshot at a capped frame rate,
+ * and labels are updated on the event dispatch thread. The view turns
+ * on change tracking in the field it shows, so after the first frame a
+ * snapshot holds only the cells that changed, and only those are
+ * redrawn.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2011.07.31
  */
-public class SimulatorView extends JFrame
+public class SimulatorView extends JFrame implements SimulationListener
 {
     // Colors used for empty locations.
     private static final Color EMPTY_COLOR = Color.white;
@@ -24,6 +34,9 @@ public class SimulatorView extends JFrame
     // Color used for objects that have no defined color.
     private static final Color UNKNOWN_COLOR = Color.gray;
 
+    // The most frames drawn per second, unless changed.
+    private static final int DEFAULT_FRAME_RATE = 30;
+
     private final String STEP_PREFIX = "Step: ";
     private final String POPULATION_PREFIX = "Population: ";
     private JLabel stepLabel, population;
@@ -31,8 +44,16 @@ public class SimulatorView extends JFrame
     
     // A map for storing colors for participants in the simulation
     private Map<Class, Color> colors;
-    // A statistics object computing and storing simulation information
-    private FieldStats stats;
+    // How many steps pass between two repaints of the view.
+    private int notificationInterval;
+    // Draws snapshots of the field on its own thread.
+    private Renderer renderer;
+    // The class whose color was looked up last, and that color.
+    private Class<?> lastClass;
+    private int lastRGB;
+    // The field shown last, and whether every cell must be redrawn.
+    private Field shownField;
+    private boolean redrawAll;
 
     /**
      * Create a view of the given width and height.
@@ -41,8 +62,8 @@ public class SimulatorView extends JFrame
      */
     public SimulatorView(int height, int width)
     {
-        stats = new FieldStats();
         colors = new LinkedHashMap<Class, Color>();
+        notificationInterval = 1;
 
         setTitle("Fox and Rabbit Simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
@@ -58,6 +79,11 @@ public class SimulatorView extends JFrame
         contents.add(population, BorderLayout.SOUTH);
         pack();
         setVisible(true);
+
+        renderer = new Renderer(height * width);
+        Thread rendering = new Thread(renderer, "field-renderer");
+        rendering.setDaemon(true);
+        rendering.start();
     }
     
     /**
@@ -68,6 +94,8 @@ public class SimulatorView extends JFrame
     public void setColor(Class animalClass, Color color)
     {
         colors.put(animalClass, color);
+        lastClass = null;
+        redrawAll = true;
     }
 
     /**
@@ -86,37 +114,82 @@ public class SimulatorView extends JFrame
     }
 
     /**
-     * Show the current status of the field.
+     * Set how often the view is repainted while the simulation runs.
+     * @param interval Repaint every interval steps. Values below 1
+     *                 are treated as 1.
+     */
+    public void setNotificationInterval(int interval)
+    {
+        notificationInterval = Math.max(1, interval);
+    }
+
+    /**
+     * @return How many steps pass between two repaints of the view.
+     */
+    @Override
+    public int getNotificationInterval()
+    {
+        return notificationInterval;
+    }
+
+    /**
+     * Set the most frames the view draws per second. The simulation
+     * never waits for drawing; snapshots taken faster than this are
+     * skipped over, and only the latest is drawn.
+     * @param framesPerSecond The frame rate cap. Values below 1 are
+     *                        treated as 1.
+     */
+    public void setMaxFrameRate(int framesPerSecond)
+    {
+        renderer.setMaxFrameRate(framesPerSecond);
+    }
+
+    /**
+     * Show the current status of the field. This only takes a snapshot
+     * of the field's colors on the calling thread; it is drawn later by
+     * the renderer thread.
      * @param step Which iteration step it is.
      * @param field The field whose status is to be displayed.
      */
+    @Override
     public void showStatus(int step, Field field)
     {
-        if(!isVisible()) {
-            setVisible(true);
+        Snapshot snapshot = renderer.startSnapshot();
+        if(field != shownField) {
+            shownField = field;
+            field.setChangeTracking(true);
+            redrawAll = true;
         }
-            
-        stepLabel.setText(STEP_PREFIX + step);
-        stats.reset();
-        
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-                    fieldView.drawMark(col, row, getColor(animal.getClass()));
-                }
-                else {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
-                }
-            }
+        // Changes must be taken even when redrawing all, to forget them.
+        boolean changesOnly = field.takeChanges(cell -> snapshot.addChange(cell, getRGB(field.getObjectAtCell(cell))));
+        if(redrawAll || !changesOnly) {
+            redrawAll = false;
+            int[] colorsByCell = snapshot.startFull();
+            Arrays.fill(colorsByCell, EMPTY_COLOR.getRGB());
+            field.forEachObject((animal, cell) -> colorsByCell[cell] = getRGB(animal.getClass()));
         }
-        stats.countFinished();
+        renderer.finishSnapshot(step, POPULATION_PREFIX + field.getStats().getPopulationDetails(field));
+    }
 
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+    /**
+     * @return The RGB color to be used for the given occupant of a cell.
+     */
+    private int getRGB(Object animal)
+    {
+        return animal == null ? EMPTY_COLOR.getRGB() : getRGB(animal.getClass());
+    }
+
+    /**
+     * @return The RGB color to be used for a given class of animal.
+     */
+    private int getRGB(Class<?> animalClass)
+    {
+        // Runs of cells usually hold the same species.
+        if(animalClass != lastClass) {
+            lastClass = animalClass;
+            lastRGB = getColor(animalClass).getRGB();
+        }
+        return lastRGB;
     }
 
     /**
@@ -125,14 +198,207 @@ public class SimulatorView extends JFrame
      */
     public boolean isViable(Field field)
     {
-        return stats.isViable(field);
+        return field.getStats().isViable(field);
     }
     
+    /**
+     * The colors of the field at one step: either the color of every
+     * cell, or the colors of the cells that changed since the snapshot
+     * before.
+     */
+    private static class Snapshot
+    {
+        // Whether the snapshot holds every cell.
+        private boolean full;
+        // The RGB color of every cell, row by row, if full.
+        private final int[] colorsByCell;
+        // The changed cells and their RGB colors, if not full.
+        private int[] changedCells, changedColors;
+        private int changeCount;
+        // The step and population text of the snapshot.
+        private int step;
+        private String populationText;
+
+        /**
+         * Create an empty snapshot of a field with the given number of cells.
+         */
+        Snapshot(int cells)
+        {
+            colorsByCell = new int[cells];
+            changedCells = new int[64];
+            changedColors = new int[64];
+        }
+
+        /**
+         * Forget the contents, ready for the next step.
+         */
+        void clear()
+        {
+            full = false;
+            changeCount = 0;
+        }
+
+        /**
+         * Make this a snapshot of every cell.
+         * @return The colors of the cells, to be filled in.
+         */
+        int[] startFull()
+        {
+            full = true;
+            changeCount = 0;
+            return colorsByCell;
+        }
+
+        /**
+         * Record the new color of a changed cell.
+         */
+        void addChange(int cell, int rgb)
+        {
+            if(full) {
+                colorsByCell[cell] = rgb;
+                return;
+            }
+            if(changeCount == changedCells.length) {
+                changedCells = Arrays.copyOf(changedCells, changeCount * 2);
+                changedColors = Arrays.copyOf(changedColors, changeCount * 2);
+            }
+            changedCells[changeCount] = cell;
+            changedColors[changeCount] = rgb;
+            changeCount++;
+        }
+
+        /**
+         * Add the changes of a later snapshot to this one, which has not
+         * been drawn yet. If the later one is full it should replace
+         * this one instead.
+         */
+        void addChanges(Snapshot later)
+        {
+            for(int i = 0; i < later.changeCount; i++) {
+                addChange(later.changedCells[i], later.changedColors[i]);
+            }
+            step = later.step;
+            populationText = later.populationText;
+        }
+    }
+
+    /**
+     * Draw snapshots of the field on a thread of its own, at a capped
+     * frame rate. Snapshots are triple buffered: the simulation fills
+     * one, the latest complete one waits in another, and the renderer
+     * draws from the third, so the simulation only ever waits to swap
+     * two references. A snapshot of changes that arrives before the
+     * waiting one has been drawn is merged into it.
+     */
+    private class Renderer implements Runnable
+    {
+        // The snapshot being taken, the latest complete one, and the
+        // one being drawn.
+        private Snapshot taking, latest, drawing;
+        // Whether the latest snapshot has not been drawn yet.
+        private boolean fresh;
+        // The shortest time between two frames, in nanoseconds.
+        private volatile long frameNanos;
+
+        /**
+         * Create a renderer for a field with the given number of cells.
+         */
+        Renderer(int cells)
+        {
+            taking = new Snapshot(cells);
+            latest = new Snapshot(cells);
+            drawing = new Snapshot(cells);
+            setMaxFrameRate(DEFAULT_FRAME_RATE);
+        }
+
+        /**
+         * Set the most frames drawn per second.
+         */
+        void setMaxFrameRate(int framesPerSecond)
+        {
+            frameNanos = 1_000_000_000L / Math.max(1, framesPerSecond);
+        }
+
+        /**
+         * @return An empty snapshot for the simulation to fill.
+         */
+        Snapshot startSnapshot()
+        {
+            taking.clear();
+            return taking;
+        }
+
+        /**
+         * Make the filled snapshot the latest one. If the latest has not
+         * been drawn yet, a full snapshot replaces it and changes are
+         * merged into it.
+         */
+        synchronized void finishSnapshot(int step, String populationText)
+        {
+            taking.step = step;
+            taking.populationText = populationText;
+            if(fresh && !taking.full) {
+                latest.addChanges(taking);
+            }
+            else {
+                Snapshot swap = latest;
+                latest = taking;
+                taking = swap;
+            }
+            fresh = true;
+            notify();
+        }
+
+        /**
+         * Draw each new snapshot, no more often than the frame rate allows.
+         */
+        @Override
+        public void run()
+        {
+            try {
+                while(true) {
+                    synchronized(this) {
+                        while(!fresh) {
+                            wait();
+                        }
+                        Snapshot swap = drawing;
+                        drawing = latest;
+                        latest = swap;
+                        fresh = false;
+                    }
+                    long start = System.nanoTime();
+                    Rectangle changed = fieldView.draw(drawing);
+                    int step = drawing.step;
+                    String populationText = drawing.populationText;
+                    SwingUtilities.invokeLater(() -> {
+                        if(!isVisible()) {
+                            setVisible(true);
+                        }
+                        stepLabel.setText(STEP_PREFIX + step);
+                        population.setText(populationText);
+                        if(changed != null) {
+                            fieldView.repaintCells(changed);
+                        }
+                    });
+                    long remaining = frameNanos - (System.nanoTime() - start);
+                    if(remaining > 0) {
+                        Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                // Stop drawing.
+            }
+        }
+    }
+
     /**
      * Provide a graphical view of a rectangular field. This is 
      * a nested class (a class defined inside a class) which
      * defines a custom component for the user interface. This
      * component displays the field.
+     * The field is drawn as an image with one pixel per cell, which
+     * is scaled up to the size of the component when it is painted.
      * This is rather advanced GUI stuff - you can ignore this 
      * for your project if you like.
      */
@@ -141,10 +407,9 @@ public class SimulatorView extends JFrame
         private final int GRID_VIEW_SCALING_FACTOR = 6;
 
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The image of the field, one pixel per cell, and its pixels.
+        private BufferedImage fieldImage;
+        private int[] pixels;
 
         /**
          * Create a new FieldView component.
@@ -153,7 +418,8 @@ public class SimulatorView extends JFrame
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
         }
 
         /**
@@ -166,52 +432,56 @@ public class SimulatorView extends JFrame
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Draw a snapshot of the field into the image. Called on the
+         * renderer thread.
+         * @param snapshot The snapshot to draw.
+         * @return The cells that changed, as columns and rows, or null
+         *         if none did.
          */
-        public void preparePaint()
+        public synchronized Rectangle draw(Snapshot snapshot)
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
-                }
+            if(snapshot.full) {
+                System.arraycopy(snapshot.colorsByCell, 0, pixels, 0, pixels.length);
+                return new Rectangle(0, 0, gridWidth, gridHeight);
+            }
+            if(snapshot.changeCount == 0) {
+                return null;
             }
+            int top = gridHeight, left = gridWidth, bottom = -1, right = -1;
+            for(int i = 0; i < snapshot.changeCount; i++) {
+                int cell = snapshot.changedCells[i];
+                pixels[cell] = snapshot.changedColors[i];
+                int row = cell / gridWidth;
+                int col = cell % gridWidth;
+                top = Math.min(top, row);
+                bottom = Math.max(bottom, row);
+                left = Math.min(left, col);
+                right = Math.max(right, col);
+            }
+            return new Rectangle(left, top, right - left + 1, bottom - top + 1);
         }
-        
+
         /**
-         * Paint on grid location on this field in a given color.
+         * Repaint the part of the component showing the given cells.
+         * @param cells The cells, as columns and rows.
          */
-        public void drawMark(int x, int y, Color color)
+        public void repaintCells(Rectangle cells)
         {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            int x = cells.x * getWidth() / gridWidth;
+            int y = cells.y * getHeight() / gridHeight;
+            int right = ((cells.x + cells.width) * getWidth() + gridWidth - 1) / gridWidth;
+            int bottom = ((cells.y + cells.height) * getHeight() + gridHeight - 1) / gridHeight;
+            repaint(x, y, right - x, bottom - y);
         }
 
         /**
          * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * image to screen, scaled to fit.
          */
-        public void paintComponent(Graphics g)
+        public synchronized void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
-                }
-            }
+            super.paintComponent(g);
+            g.drawImage(fieldImage, 0, 0, getWidth(), getHeight(), null);
         }
     }
-}
\ No newline at end of file
+}
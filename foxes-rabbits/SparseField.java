@@ -0,0 +1,286 @@
+package foxes_rabbits_v5;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A field for large worlds that are mostly empty. The field is divided
+ * into square chunks, and a chunk's storage is only allocated when an
+ * animal is first placed in it and is released again if it is empty at
+ * the end of a step, so memory grows with the occupied area rather than
+ * the total area. Scans of the field skip empty chunks.
+ *
+ * Cells are numbered row by row with an int, as in Field, so the field
+ * may hold at most Integer.MAX_VALUE cells: 46340x46340 when square.
+ * Larger worlds would need cells numbered with a long throughout the
+ * simulation.
+ *
+ * Placing and clearing animals is safe from several threads as long as
+ * no two threads use the same cell at the same time, as when stepping
+ * in parallel tiles. Reads take no lock, so a chunk that empties during
+ * a step keeps its storage until endStep: a thread that has just read a
+ * chunk from the table while another empties it never sees the storage
+ * reused for another part of the field.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class SparseField extends Field
+{
+    // The width and depth of a chunk, as a power of two.
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    // The number of locks guarding the chunks; a power of two.
+    private static final int LOCKS = 64;
+    // The most released chunks kept for reuse.
+    private static final int MAX_SPARE_CHUNKS = 64;
+
+    // The number of chunk columns.
+    private final int chunkCols;
+    // The storage of each chunk, row by row, or null if it has been released.
+    private final Object[][] chunks;
+    // The number of animals in each chunk.
+    private final int[] occupancy;
+    // Guard the chunks; chunk i is guarded by lock i % LOCKS.
+    private final Object[] locks;
+    // Released chunks, ready for reuse. All their cells are null.
+    private final ArrayDeque<Object[]> spareChunks;
+    // The number of chunks allocated.
+    private int allocatedChunks;
+    // The chunks emptied during the current step, to release at its
+    // end; a chunk may be listed more than once. Guarded by spareChunks.
+    private int[] emptiedChunks;
+    private int emptiedCount;
+
+    /**
+     * Represent a sparse field of the given dimensions.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public SparseField(int depth, int width)
+    {
+        super(depth, width, false);
+        chunkCols = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunkRows = (depth + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunks = new Object[chunkRows * chunkCols][];
+        occupancy = new int[chunks.length];
+        locks = new Object[LOCKS];
+        for(int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+        spareChunks = new ArrayDeque<Object[]>();
+        emptiedChunks = new int[MAX_SPARE_CHUNKS];
+    }
+
+    /**
+     * Empty the field, releasing every chunk.
+     */
+    @Override
+    public void clear()
+    {
+        Arrays.fill(chunks, null);
+        Arrays.fill(occupancy, 0);
+        synchronized(spareChunks) {
+            allocatedChunks = 0;
+            emptiedCount = 0;
+        }
+        getStats().reset();
+        getStats().countFinished();
+        markAllChanged();
+    }
+
+    /**
+     * Clear the given location.
+     * @param location The location to clear.
+     */
+    @Override
+    public void clear(Location location)
+    {
+        set(location.getRow(), location.getCol(), null);
+    }
+
+    /**
+     * Place an animal at the given location.
+     * If there is already an animal at the location it will
+     * be lost.
+     * @param animal The animal to be placed.
+     * @param location Where to place the animal.
+     */
+    @Override
+    public void place(Object animal, Location location)
+    {
+        set(location.getRow(), location.getCol(), animal);
+    }
+
+    /**
+     * Return the animal at the given location, if any.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The animal at the given location, or null if there is none.
+     */
+    @Override
+    public Object getObjectAt(int row, int col)
+    {
+        Object[] chunk = chunks[chunkOf(row, col)];
+        return chunk == null ? null : chunk[offsetOf(row, col)];
+    }
+
+    /**
+     * Return the animal in the given cell, if any.
+     * @param cell The desired cell.
+     * @return The animal in the given cell, or null if there is none.
+     */
+    @Override
+    public Object getObjectAtCell(int cell)
+    {
+        int width = getWidth();
+        return getObjectAt(cell / width, cell % width);
+    }
+
+    /**
+     * Pass every animal in the field to the action, together with its
+     * cell. Empty chunks are skipped.
+     * @param action Called with each animal and its cell.
+     */
+    @Override
+    public void forEachObject(ObjIntConsumer<Object> action)
+    {
+        int width = getWidth();
+        for(int index = 0; index < chunks.length; index++) {
+            Object[] chunk = chunks[index];
+            if(chunk != null) {
+                int top = (index / chunkCols) << CHUNK_SHIFT;
+                int left = (index % chunkCols) << CHUNK_SHIFT;
+                for(int offset = 0; offset < CHUNK_CELLS; offset++) {
+                    if(chunk[offset] != null) {
+                        int row = top + (offset >> CHUNK_SHIFT);
+                        int col = left + (offset & CHUNK_MASK);
+                        action.accept(chunk[offset], row * width + col);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of chunks currently allocated.
+     */
+    public int getAllocatedChunks()
+    {
+        synchronized(spareChunks) {
+            return allocatedChunks;
+        }
+    }
+
+    /**
+     * @return The number of cells in each allocated chunk.
+     */
+    public static int getChunkCells()
+    {
+        return CHUNK_CELLS;
+    }
+
+    /**
+     * Release the storage of the chunks that are still empty at the end
+     * of a step.
+     */
+    @Override
+    void endStep()
+    {
+        synchronized(spareChunks) {
+            for(int i = 0; i < emptiedCount; i++) {
+                int index = emptiedChunks[i];
+                Object[] chunk = chunks[index];
+                if(chunk != null && occupancy[index] == 0) {
+                    chunks[index] = null;
+                    allocatedChunks--;
+                    if(spareChunks.size() < MAX_SPARE_CHUNKS) {
+                        spareChunks.push(chunk);
+                    }
+                }
+            }
+            emptiedCount = 0;
+        }
+    }
+
+    /**
+     * Set the contents of a cell, allocating its chunk if an animal is
+     * placed in an empty one. A chunk whose last animal is cleared is
+     * kept until the end of the step.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param animal The animal to place, or null to clear the cell.
+     */
+    private void set(int row, int col, Object animal)
+    {
+        int index = chunkOf(row, col);
+        int offset = offsetOf(row, col);
+        synchronized(locks[index & (LOCKS - 1)]) {
+            Object[] chunk = chunks[index];
+            if(chunk == null) {
+                if(animal == null) {
+                    return;
+                }
+                chunk = allocateChunk();
+                chunks[index] = chunk;
+            }
+            if(chunk[offset] == null && animal != null) {
+                occupancy[index]++;
+            }
+            else if(chunk[offset] != null && animal == null) {
+                occupancy[index]--;
+            }
+            chunk[offset] = animal;
+            if(occupancy[index] == 0) {
+                chunkEmptied(index);
+            }
+        }
+        markChanged(row * getWidth() + col);
+    }
+
+    /**
+     * Return empty storage for a chunk, reusing a released one if any.
+     */
+    private Object[] allocateChunk()
+    {
+        synchronized(spareChunks) {
+            allocatedChunks++;
+            Object[] chunk = spareChunks.poll();
+            return chunk != null ? chunk : new Object[CHUNK_CELLS];
+        }
+    }
+
+    /**
+     * Note that a chunk has become empty, to be released at the end of
+     * the step.
+     */
+    private void chunkEmptied(int index)
+    {
+        synchronized(spareChunks) {
+            if(emptiedCount == emptiedChunks.length) {
+                emptiedChunks = Arrays.copyOf(emptiedChunks, emptiedCount * 2);
+            }
+            emptiedChunks[emptiedCount++] = index;
+        }
+    }
+
+    /**
+     * Return the index of the chunk holding the given cell.
+     */
+    private int chunkOf(int row, int col)
+    {
+        return (row >> CHUNK_SHIFT) * chunkCols + (col >> CHUNK_SHIFT);
+    }
+
+    /**
+     * Return the position of the given cell within its chunk.
+     */
+    private static int offsetOf(int row, int col)
+    {
+        return ((row & CHUNK_MASK) << CHUNK_SHIFT) | (col & CHUNK_MASK);
+    }
+}
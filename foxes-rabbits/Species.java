@@ -0,0 +1,195 @@
+package foxes_rabbits_v5;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The characteristics shared by all animals of one species. Engines
+ * that do not keep an object per animal look up an animal's behaviour
+ * here by species id.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class Species
+{
+    // The most species that diet masks can tell apart.
+    public static final int MAX_SPECIES = Long.SIZE;
+
+    // The name of the species, e.g. "Fox".
+    private final String name;
+    // The color used to display the species.
+    private final Color color;
+    // The age at which an animal can start to breed.
+    private final int breedingAge;
+    // The age to which an animal can live.
+    private final int maxAge;
+    // The likelihood of an animal breeding.
+    private final double breedingProbability;
+    // The likelihood of an animal being created when populating.
+    private final double creationProbability;
+    // The maximum number of births.
+    private final int maxLitterSize;
+    // The food level of a newborn, or 0 if the species does not hunt.
+    private final int maxFoodLevel;
+    // The food value of each other species, indexed by species id.
+    private final int[] foodValues;
+    // A bit set for the id of each species eaten.
+    private final long dietMask;
+    // The cells in which an animal senses prey and to which it moves.
+    private final Neighbourhood neighbourhood;
+
+    /**
+     * Create a species with the given characteristics, whose animals
+     * sense and move to the adjacent cells only.
+     * @param foodValues The food value of each species by id; 0 for
+     *                   species that are not eaten.
+     */
+    public Species(String name, Color color, int breedingAge, int maxAge,
+                   double breedingProbability, double creationProbability,
+                   int maxLitterSize, int maxFoodLevel, int[] foodValues) {
+        this(name, color, breedingAge, maxAge, breedingProbability, creationProbability,
+             maxLitterSize, maxFoodLevel, foodValues, Neighbourhood.MOORE);
+    }
+
+    /**
+     * Create a species with the given characteristics.
+     * @param foodValues The food value of each species by id; 0 for
+     *                   species that are not eaten.
+     * @param neighbourhood The cells in which an animal senses prey and
+     *                      to which it moves.
+     */
+    public Species(String name, Color color, int breedingAge, int maxAge,
+                   double breedingProbability, double creationProbability,
+                   int maxLitterSize, int maxFoodLevel, int[] foodValues,
+                   Neighbourhood neighbourhood) {
+        this.name = name;
+        this.color = color;
+        this.breedingAge = breedingAge;
+        this.maxAge = maxAge;
+        this.breedingProbability = breedingProbability;
+        this.creationProbability = creationProbability;
+        this.maxLitterSize = maxLitterSize;
+        this.maxFoodLevel = maxFoodLevel;
+        this.foodValues = foodValues.clone();
+        long mask = 0;
+        for(int prey = 0; prey < foodValues.length && prey < MAX_SPECIES; prey++) {
+            if(foodValues[prey] > 0) {
+                mask |= 1L << prey;
+            }
+        }
+        dietMask = mask;
+        this.neighbourhood = neighbourhood;
+    }
+
+    /**
+     * Describe the species of each of the given animals. The species id
+     * of an animal's species is its index in the list.
+     * @param prototypes One animal of each species.
+     * @return The species, in the same order as the prototypes.
+     */
+    public static List<Species> fromPrototypes(List<? extends Animal> prototypes) {
+        List<Species> species = new ArrayList<Species>();
+        for(Animal animal : prototypes) {
+            int[] foodValues = new int[prototypes.size()];
+            for(int prey = 0; prey < foodValues.length; prey++) {
+                foodValues[prey] = animal.getFoodValue(prototypes.get(prey).getClass());
+            }
+            species.add(new Species(animal.getClass().getSimpleName(), animal.getColor(),
+                                    animal.getBreedingAge(), animal.getMaxAge(),
+                                    animal.getBreedingProb(), animal.getAnimalCreationProb(),
+                                    animal.getMaxLitterSize(), animal.getMaxFoodLevel(),
+                                    foodValues, animal.getNeighbourhood()));
+        }
+        return species;
+    }
+
+    /**
+     * @return The name of the species.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The color used to display the species.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * @return The age at which an animal can start to breed.
+     */
+    public int getBreedingAge() {
+        return breedingAge;
+    }
+
+    /**
+     * @return The age to which an animal can live.
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * @return The likelihood of an animal breeding.
+     */
+    public double getBreedingProbability() {
+        return breedingProbability;
+    }
+
+    /**
+     * @return The likelihood of an animal being created when populating.
+     */
+    public double getCreationProbability() {
+        return creationProbability;
+    }
+
+    /**
+     * @return The maximum number of births.
+     */
+    public int getMaxLitterSize() {
+        return maxLitterSize;
+    }
+
+    /**
+     * @return The food level of a newborn, or 0 if the species does not hunt.
+     */
+    public int getMaxFoodLevel() {
+        return maxFoodLevel;
+    }
+
+    /**
+     * @return True if animals of this species hunt and can starve.
+     */
+    public boolean isHunter() {
+        return maxFoodLevel > 0;
+    }
+
+    /**
+     * Return the food value of eating an animal of another species.
+     * @param preyId The species id of the potential prey.
+     * @return The food value, or 0 if this species does not eat it.
+     */
+    public int getFoodValue(int preyId) {
+        return foodValues[preyId];
+    }
+
+    /**
+     * Return the diet of the species as a bit mask: bit i is set if it
+     * eats the species with id i.
+     * @return The diet mask.
+     */
+    public long getDietMask() {
+        return dietMask;
+    }
+
+    /**
+     * @return The cells in which an animal senses prey and to which it moves.
+     */
+    public Neighbourhood getNeighbourhood() {
+        return neighbourhood;
+    }
+}
@@ -0,0 +1,379 @@
+package foxes_rabbits_v5;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The species of a simulation, read from a properties file: their
+ * characteristics and a diet table giving the food value of each prey
+ * species to each hunter. A species' id is its position in the file's
+ * species list. See species.properties for the format.
+ *
+ * A species described here needs no class of its own to be simulated
+ * by CompactSimulator, which runs every species through one table-driven
+ * act loop. The default registry also supplies the characteristics of
+ * Fox, Rabbit and Wolf. Their values are compiled in, here and nowhere
+ * else, and a species.properties resource beside this class, or a file
+ * given to load, only overrides them. Running this class prints them in
+ * the format of the file.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class SpeciesRegistry
+{
+    // The name of the resource holding the default species.
+    public static final String DEFAULT_RESOURCE = "species.properties";
+
+    // The built-in species, Fox, Rabbit and Wolf, as keys and values in
+    // the format of species.properties. These are the only copy of their
+    // values; main prints them.
+    private static final String[][] BUILT_IN = {
+        {"species", "Fox, Rabbit, Wolf"},
+
+        {"Fox.color", "blue"},
+        {"Fox.breedingAge", "12"},
+        {"Fox.maxAge", "150"},
+        {"Fox.breedingProbability", "0.09"},
+        {"Fox.creationProbability", "0.06"},
+        {"Fox.maxLitterSize", "2"},
+        {"Fox.eats", "Rabbit:9"},
+
+        {"Rabbit.color", "orange"},
+        {"Rabbit.breedingAge", "5"},
+        {"Rabbit.maxAge", "40"},
+        {"Rabbit.breedingProbability", "0.12"},
+        {"Rabbit.creationProbability", "0.08"},
+        {"Rabbit.maxLitterSize", "4"},
+
+        {"Wolf.color", "black"},
+        {"Wolf.breedingAge", "20"},
+        {"Wolf.maxAge", "200"},
+        {"Wolf.breedingProbability", "0.05"},
+        {"Wolf.creationProbability", "0.04"},
+        {"Wolf.maxLitterSize", "1"},
+        {"Wolf.eats", "Rabbit:8, Fox:3"},
+        {"Wolf.maxFoodLevel", "11"},
+    };
+
+    // The default registry, once read.
+    private static SpeciesRegistry defaultRegistry;
+
+    // The species, indexed by id.
+    private final List<Species> species;
+    // The id of each species, by name.
+    private final Map<String, Integer> ids;
+
+    /**
+     * Create a registry of the given species.
+     * @param species The species, indexed by id.
+     */
+    public SpeciesRegistry(List<Species> species)
+    {
+        this.species = Collections.unmodifiableList(new ArrayList<Species>(species));
+        ids = new HashMap<String, Integer>();
+        for(int id = 0; id < species.size(); id++) {
+            ids.put(species.get(id).getName(), id);
+        }
+    }
+
+    /**
+     * Return the default registry: the built-in species, with any
+     * values in the species.properties resource beside this class
+     * taking their place.
+     * @return The default registry.
+     * @throws IllegalStateException If the resource is invalid.
+     */
+    public static synchronized SpeciesRegistry getDefault()
+    {
+        if(defaultRegistry == null) {
+            try(InputStream in = SpeciesRegistry.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                Properties properties = new Properties(builtIn());
+                if(in != null) {
+                    properties.load(in);
+                }
+                defaultRegistry = fromProperties(properties);
+            }
+            catch(IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Could not read " + DEFAULT_RESOURCE, e);
+            }
+        }
+        return defaultRegistry;
+    }
+
+    /**
+     * Return the built-in species, Fox, Rabbit and Wolf, as properties
+     * in the format of species.properties.
+     */
+    private static Properties builtIn()
+    {
+        Properties properties = new Properties();
+        for(String[] entry : BUILT_IN) {
+            properties.setProperty(entry[0], entry[1]);
+        }
+        return properties;
+    }
+
+    /**
+     * Read a registry from a properties file, whose values take the
+     * place of the built-in ones. A file that lists its own species
+     * keeps only those, but the built-in values of any Fox, Rabbit or
+     * Wolf among them still apply.
+     * @param file The file.
+     * @return The registry.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not valid.
+     */
+    public static SpeciesRegistry load(Path file) throws IOException
+    {
+        try(Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties(builtIn());
+            properties.load(in);
+            return fromProperties(properties);
+        }
+    }
+
+    /**
+     * Read a registry from properties in the format of species.properties.
+     * @param properties The properties.
+     * @return The registry.
+     * @throws IllegalArgumentException If the properties are not valid.
+     */
+    public static SpeciesRegistry fromProperties(Properties properties)
+    {
+        List<String> names = split(require(properties, "species"));
+        if(names.size() > Species.MAX_SPECIES) {
+            throw new IllegalArgumentException("At most " + Species.MAX_SPECIES + " species are allowed");
+        }
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        for(String name : names) {
+            if(ids.put(name, ids.size()) != null) {
+                throw new IllegalArgumentException("Species " + name + " is listed twice");
+            }
+        }
+        List<Species> species = new ArrayList<Species>();
+        for(String name : names) {
+            int[] foodValues = new int[names.size()];
+            int largestFoodValue = 0;
+            for(String entry : split(properties.getProperty(name + ".eats", ""))) {
+                int colon = entry.indexOf(':');
+                Integer prey = colon < 0 ? null : ids.get(entry.substring(0, colon).trim());
+                if(prey == null) {
+                    throw new IllegalArgumentException("Bad diet entry for " + name + ": " + entry);
+                }
+                foodValues[prey] = parseInt(name + ".eats", entry.substring(colon + 1).trim(),
+                                            0, Short.MAX_VALUE);
+                largestFoodValue = Math.max(largestFoodValue, foodValues[prey]);
+            }
+            String maxFoodLevel = properties.getProperty(name + ".maxFoodLevel");
+            String radius = properties.getProperty(name + ".radius");
+            species.add(new Species(name,
+                                    parseColor(name + ".color", require(properties, name + ".color")),
+                                    getInt(properties, name + ".breedingAge", 0, Integer.MAX_VALUE),
+                                    getInt(properties, name + ".maxAge", 1, Short.MAX_VALUE),
+                                    getProbability(properties, name + ".breedingProbability"),
+                                    getProbability(properties, name + ".creationProbability"),
+                                    getInt(properties, name + ".maxLitterSize", 1, Integer.MAX_VALUE),
+                                    maxFoodLevel == null ? largestFoodValue
+                                        : parseInt(name + ".maxFoodLevel", maxFoodLevel.trim(),
+                                                   0, Short.MAX_VALUE),
+                                    foodValues,
+                                    parseNeighbourhood(name, properties.getProperty(name + ".neighbourhood", "moore"),
+                                                       radius == null ? "1" : radius)));
+        }
+        return new SpeciesRegistry(species);
+    }
+
+    /**
+     * @return The number of species.
+     */
+    public int size()
+    {
+        return species.size();
+    }
+
+    /**
+     * @return The species, indexed by id.
+     */
+    public List<Species> getSpecies()
+    {
+        return species;
+    }
+
+    /**
+     * Return a species by id.
+     * @param id The id of the species.
+     * @return The species.
+     */
+    public Species get(int id)
+    {
+        return species.get(id);
+    }
+
+    /**
+     * Return a species by name.
+     * @param name The name of the species, e.g. "Fox".
+     * @return The species.
+     * @throws IllegalArgumentException If there is no such species.
+     */
+    public Species get(String name)
+    {
+        int id = getId(name);
+        if(id < 0) {
+            throw new IllegalArgumentException("No species " + name);
+        }
+        return species.get(id);
+    }
+
+    /**
+     * Return the id of a species.
+     * @param name The name of the species, e.g. "Fox".
+     * @return Its id, or -1 if there is no such species.
+     */
+    public int getId(String name)
+    {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Return the food value to one species of eating another.
+     * @param hunter The name of the hunting species.
+     * @param prey The name of the prey species.
+     * @return The food value, or 0 if the hunter does not eat the prey.
+     */
+    public int getFoodValue(String hunter, String prey)
+    {
+        int preyId = getId(prey);
+        return preyId < 0 ? 0 : get(hunter).getFoodValue(preyId);
+    }
+
+    /**
+     * Return a property that must be present.
+     */
+    private static String require(Properties properties, String key)
+    {
+        String value = properties.getProperty(key);
+        if(value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value.trim();
+    }
+
+    private static int getInt(Properties properties, String key, int min, int max)
+    {
+        return parseInt(key, require(properties, key), min, max);
+    }
+
+    /**
+     * Return a property that must be a probability, from 0 to 1.
+     */
+    private static double getProbability(Properties properties, String key)
+    {
+        double value;
+        try {
+            value = Double.parseDouble(require(properties, key));
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number for " + key, e);
+        }
+        if(!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(key + " must be from 0 to 1: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Parse a whole number that must lie from min to max.
+     */
+    private static int parseInt(String key, String value, int min, int max)
+    {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number for " + key, e);
+        }
+        if(number < min || number > max) {
+            String range = max == Integer.MAX_VALUE ? "at least " + min : "from " + min + " to " + max;
+            throw new IllegalArgumentException(key + " must be " + range + ": " + number);
+        }
+        return number;
+    }
+
+    /**
+     * Parse a colour given as #RRGGBB or as the name of a java.awt.Color
+     * constant, e.g. orange.
+     */
+    private static Color parseColor(String key, String value)
+    {
+        try {
+            if(value.startsWith("#")) {
+                return Color.decode(value);
+            }
+            return (Color) Color.class.getField(value).get(null);
+        }
+        catch(NumberFormatException | ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Bad colour for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Parse a neighbourhood given as a shape, moore or von_neumann, and
+     * a radius.
+     */
+    private static Neighbourhood parseNeighbourhood(String name, String shape, String radius)
+    {
+        try {
+            return Neighbourhood.of(Neighbourhood.Shape.valueOf(shape.trim().toUpperCase()),
+                                    parseInt(name + ".radius", radius.trim(), 1, Neighbourhood.MAX_RADIUS));
+        }
+        catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bad neighbourhood for " + name + ": " + shape + " " + radius, e);
+        }
+    }
+
+    /**
+     * Split a comma-separated list, dropping empty entries.
+     */
+    private static List<String> split(String list)
+    {
+        List<String> entries = new ArrayList<String>();
+        for(String entry : list.split(",")) {
+            if(!entry.trim().isEmpty()) {
+                entries.add(entry.trim());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Print the built-in species in the format of species.properties,
+     * as a starting point for a file of one's own.
+     * @param args Not used.
+     */
+    public static void main(String[] args)
+    {
+        String group = "";
+        for(String[] entry : BUILT_IN) {
+            String prefix = entry[0].substring(0, entry[0].indexOf('.') + 1);
+            if(!prefix.equals(group)) {
+                System.out.println();
+                group = prefix;
+            }
+            System.out.println(entry[0] + " = " + entry[1]);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package foxes_rabbits_v5;
+
+import java.util.Locale;
+
+/**
+ * Watch the population of each species step by step and tell when the
+ * simulation has settled, so that a long run can stop early.
+ *
+ * The detector keeps the last two windows of populations. When every
+ * species has about the same mean and standard deviation in both
+ * windows, within a tolerance relative to its mean, the populations
+ * are taken to be stationary. They are at an equilibrium if every
+ * standard deviation is also within the tolerance of the mean, and in
+ * a limit cycle if their autocorrelation over both windows has a clear
+ * peak; that peak's lag is the period. Other stationary populations
+ * fluctuate with no clear period. The means and sums of squares are
+ * kept as running sums, so a step costs O(1) per species; the
+ * autocorrelation is only worked out once, when the populations have
+ * become stationary.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class SteadyStateDetector
+{
+    /**
+     * The regimes a simulation can settle into, or not.
+     */
+    public enum Regime
+    {
+        // Every population stays close to its mean.
+        EQUILIBRIUM,
+        // The populations oscillate with a period.
+        LIMIT_CYCLE,
+        // The populations fluctuate around steady means, with no clear period.
+        STATIONARY,
+        // Fewer than two species are left.
+        EXTINCTION,
+        // The populations were still changing when the run ended.
+        TRANSIENT
+    }
+
+    // The default number of steps in a window.
+    public static final int DEFAULT_WINDOW = 400;
+
+    // The shortest period reported as a cycle.
+    private static final int MIN_PERIOD = 4;
+
+    // The autocorrelation a peak needs to count as a cycle.
+    private static final double CYCLE_CORRELATION = 0.5;
+
+    // The names of the species, in the order of the populations.
+    private final String[] species;
+    // The number of steps in a window.
+    private final int window;
+    // The largest change between windows, relative to the mean.
+    private final double tolerance;
+    // The populations of the last two windows of steps, by species,
+    // each a ring of 2 * window entries.
+    private final int[][] history;
+    // The number of populations added.
+    private long samples;
+    // The sum and sum of squares of the populations in the older and
+    // the newer window, by species.
+    private final long[] olderSums, olderSquares, newerSums, newerSquares;
+    // The period of the cycle found, or 0.
+    private int period;
+
+    /**
+     * Create a detector.
+     * @param species The names of the species, in the order in which
+     *                their populations will be added.
+     * @param window The number of steps in a window. A cycle is only
+     *               found if its period is at most this long.
+     * @param tolerance The largest change in the mean or standard
+     *                  deviation of a population between windows, as a
+     *                  fraction of its mean, e.g. 0.1.
+     */
+    public SteadyStateDetector(String[] species, int window, double tolerance)
+    {
+        if(window < 2 * MIN_PERIOD) {
+            throw new IllegalArgumentException("The window must be at least " + 2 * MIN_PERIOD + " steps");
+        }
+        this.species = species.clone();
+        this.window = window;
+        this.tolerance = tolerance;
+        history = new int[species.length][2 * window];
+        olderSums = new long[species.length];
+        olderSquares = new long[species.length];
+        newerSums = new long[species.length];
+        newerSquares = new long[species.length];
+    }
+
+    /**
+     * Add the populations after a step, and tell whether they have
+     * settled.
+     * @param populations The population of each species.
+     * @return The regime the populations have settled into, or null if
+     *         they have not settled yet.
+     */
+    public Regime add(int[] populations)
+    {
+        int slot = (int) (samples % (2 * window));
+        int leaving = (int) ((samples + window) % (2 * window));
+        for(int s = 0; s < species.length; s++) {
+            int[] series = history[s];
+            if(samples >= 2 * window) {
+                // The oldest population drops out of the older window.
+                long oldest = series[slot];
+                olderSums[s] -= oldest;
+                olderSquares[s] -= oldest * oldest;
+            }
+            if(samples >= window) {
+                // The population a window ago moves to the older window.
+                long moving = series[leaving];
+                newerSums[s] -= moving;
+                newerSquares[s] -= moving * moving;
+                olderSums[s] += moving;
+                olderSquares[s] += moving * moving;
+            }
+            long population = populations[s];
+            series[slot] = populations[s];
+            newerSums[s] += population;
+            newerSquares[s] += population * population;
+        }
+        samples++;
+        return samples >= 2 * window ? settledRegime() : null;
+    }
+
+    /**
+     * Describe the populations of the newest window.
+     * @param regime The regime to report.
+     * @param step The step reached.
+     * @return The report.
+     */
+    public Report report(Regime regime, int step)
+    {
+        int count = (int) Math.min(samples, window);
+        double[] means = new double[species.length];
+        double[] deviations = new double[species.length];
+        for(int s = 0; s < species.length; s++) {
+            double sum = 0;
+            double squares = 0;
+            for(int i = 0; i < count; i++) {
+                double population = sample(s, samples - count + i);
+                sum += population;
+                squares += population * population;
+            }
+            if(count > 0) {
+                means[s] = sum / count;
+                deviations[s] = Math.sqrt(Math.max(0, squares / count - means[s] * means[s]));
+            }
+        }
+        return new Report(regime, step, regime == Regime.LIMIT_CYCLE ? period : 0,
+                          species, means, deviations);
+    }
+
+    /**
+     * Return the regime the populations have settled into, or null if
+     * the two windows still differ.
+     */
+    private Regime settledRegime()
+    {
+        boolean equilibrium = true;
+        for(int s = 0; s < species.length; s++) {
+            double olderMean = (double) olderSums[s] / window;
+            double newerMean = (double) newerSums[s] / window;
+            double olderDeviation = deviation(olderSquares[s], olderMean);
+            double newerDeviation = deviation(newerSquares[s], newerMean);
+            double scale = tolerance * Math.max(newerMean, 1);
+            if(Math.abs(olderMean - newerMean) > scale || Math.abs(olderDeviation - newerDeviation) > scale) {
+                return null;
+            }
+            equilibrium &= newerDeviation <= scale;
+        }
+        if(equilibrium) {
+            return Regime.EQUILIBRIUM;
+        }
+        period = findPeriod();
+        return period > 0 ? Regime.LIMIT_CYCLE : Regime.STATIONARY;
+    }
+
+    /**
+     * Return the standard deviation of a window's populations.
+     */
+    private double deviation(long squares, double mean)
+    {
+        return Math.sqrt(Math.max(0, (double) squares / window - mean * mean));
+    }
+
+    /**
+     * Find the period of the populations over both windows: the lag of
+     * the first peak in their mean autocorrelation after it has first
+     * fallen below zero, if the peak is high enough.
+     * @return The period, or 0 if there is no clear one.
+     */
+    private int findPeriod()
+    {
+        int length = 2 * window;
+        double[] correlation = new double[window + 2];
+        int varying = 0;
+        for(int s = 0; s < species.length; s++) {
+            double[] series = new double[length];
+            double mean = 0;
+            for(int i = 0; i < length; i++) {
+                series[i] = sample(s, samples - length + i);
+                mean += series[i];
+            }
+            mean /= length;
+            double variance = 0;
+            for(int i = 0; i < length; i++) {
+                series[i] -= mean;
+                variance += series[i] * series[i];
+            }
+            variance /= length;
+            if(variance == 0) {
+                // A constant population, e.g. an extinct species, has no period.
+                continue;
+            }
+            varying++;
+            for(int lag = 1; lag < correlation.length; lag++) {
+                double sum = 0;
+                for(int i = 0; i + lag < length; i++) {
+                    sum += series[i] * series[i + lag];
+                }
+                correlation[lag] += sum / (length - lag) / variance;
+            }
+        }
+        if(varying == 0) {
+            return 0;
+        }
+        boolean crossed = false;
+        for(int lag = 1; lag <= window; lag++) {
+            double r = correlation[lag] / varying;
+            crossed |= r < 0;
+            if(crossed && lag >= MIN_PERIOD && r >= CYCLE_CORRELATION
+               && correlation[lag] >= correlation[lag - 1] && correlation[lag] >= correlation[lag + 1]) {
+                return lag;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Return the population of a species after a given sample, which
+     * must be one of the last two windows.
+     */
+    private int sample(int species, long index)
+    {
+        return history[species][(int) (index % (2 * window))];
+    }
+
+    /**
+     * The regime a simulation settled into, with the mean and standard
+     * deviation of each population over the last window.
+     */
+    public static class Report
+    {
+        // The regime.
+        private final Regime regime;
+        // The step reached.
+        private final int step;
+        // The period of a limit cycle, or 0.
+        private final int period;
+        // The names of the species.
+        private final String[] species;
+        // The mean and standard deviation of each population.
+        private final double[] means, deviations;
+
+        /**
+         * Create a report.
+         */
+        Report(Regime regime, int step, int period, String[] species, double[] means, double[] deviations)
+        {
+            this.regime = regime;
+            this.step = step;
+            this.period = period;
+            this.species = species;
+            this.means = means;
+            this.deviations = deviations;
+        }
+
+        /**
+         * @return The regime.
+         */
+        public Regime getRegime()
+        {
+            return regime;
+        }
+
+        /**
+         * @return The step at which the regime was detected, or the
+         *         last step run.
+         */
+        public int getStep()
+        {
+            return step;
+        }
+
+        /**
+         * @return The period of a limit cycle in steps, or 0.
+         */
+        public int getPeriod()
+        {
+            return period;
+        }
+
+        /**
+         * Return the mean population of a species over the last window.
+         * @param index The index of the species.
+         */
+        public double getMean(int index)
+        {
+            return means[index];
+        }
+
+        /**
+         * Return the standard deviation of the population of a species
+         * over the last window.
+         * @param index The index of the species.
+         */
+        public double getDeviation(int index)
+        {
+            return deviations[index];
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder text = new StringBuilder();
+            text.append(regime).append(" at step ").append(step);
+            if(period > 0) {
+                text.append(", period ").append(period);
+            }
+            for(int s = 0; s < species.length; s++) {
+                text.append(s == 0 ? ": " : ", ");
+                text.append(String.format(Locale.ROOT, "%s %.1f +/- %.1f", species[s], means[s], deviations[s]));
+            }
+            return text.toString();
+        }
+    }
+}
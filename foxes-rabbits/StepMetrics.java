@@ -0,0 +1,422 @@
+package foxes_rabbits_v5;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Time the steps of a simulator: the time each species spends acting,
+ * the time spent merging newborns into the list of animals, telling
+ * listeners about the step and rendering it, together with a histogram
+ * of whole-step times, the step rate and the population. The figures
+ * can be read through snapshot(), or over JMX once registered.
+ *
+ * Timing is off by default. When it is off the simulator only checks
+ * the switch once per step; when it is on, it reads the clock once per
+ * animal and a few more times per step. When the simulator steps in
+ * parallel tiles, acting is timed as a whole rather than by species.
+ *
+ * The simulator records on its own thread; snapshots may be taken from
+ * any thread.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class StepMetrics implements StepMetricsMXBean
+{
+    // The domain and type under which metrics are registered with JMX.
+    public static final String JMX_TYPE = "foxes_rabbits_v5:type=StepMetrics";
+
+    // The phases timed besides acting by species.
+    static final int MERGE = 0;
+    static final int LISTENERS = 1;
+    static final int RENDER = 2;
+    static final int TILES = 3;
+    private static final String[] PHASE_NAMES = { "merge", "listeners", "render", "act (tiled)" };
+
+    // The field whose population is reported.
+    private final Field field;
+    // Whether steps are being timed.
+    private volatile boolean enabled;
+
+    // Used by the simulator's thread only: the times of the step in
+    // progress, which are added to the totals when it ends.
+    private long stepStart;
+    private long[] stepActNanos;
+    private final long[] stepPhaseNanos;
+
+    // The rest is guarded by this object.
+    // The species simulated, followed by any others seen acting.
+    private Class<?>[] species;
+    // The total time each species has spent acting.
+    private long[] actNanos;
+    // The total time spent in each other phase.
+    private final long[] phaseNanos;
+    // The times of whole steps.
+    private final LatencyHistogram stepNanos;
+    // When the first step timed started and the last one ended.
+    private long firstStepStart;
+    private long lastStepEnd;
+    // The population after the last step, in total and by species.
+    private int population;
+    private int[] speciesPopulation;
+    // The name under which these metrics are registered, or null.
+    private ObjectName registeredName;
+
+    /**
+     * Create metrics, switched off, for a simulation of the given field.
+     * @param field The field whose population is reported.
+     * @param prototypes One animal of each species simulated.
+     */
+    public StepMetrics(Field field, List<? extends Animal> prototypes)
+    {
+        this.field = field;
+        species = new Class<?>[prototypes.size()];
+        for(int i = 0; i < species.length; i++) {
+            species[i] = prototypes.get(i).getClass();
+        }
+        stepActNanos = new long[species.length];
+        stepPhaseNanos = new long[PHASE_NAMES.length];
+        actNanos = new long[species.length];
+        phaseNanos = new long[PHASE_NAMES.length];
+        stepNanos = new LatencyHistogram();
+        speciesPopulation = new int[species.length];
+    }
+
+    /**
+     * Register these metrics with the platform MBean server, so that
+     * they can be watched over JMX.
+     * @param name Distinguishes these metrics from those of other simulators.
+     * @throws IllegalStateException If they cannot be registered.
+     */
+    public synchronized void register(String name)
+    {
+        unregister();
+        try {
+            ObjectName objectName = new ObjectName(JMX_TYPE + ",name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+        }
+        catch(JMException e) {
+            throw new IllegalStateException("Could not register the metrics as " + name, e);
+        }
+    }
+
+    /**
+     * Remove these metrics from the platform MBean server, if registered.
+     */
+    public synchronized void unregister()
+    {
+        if(registeredName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                if(server.isRegistered(registeredName)) {
+                    server.unregisterMBean(registeredName);
+                }
+            }
+            catch(JMException e) {
+                throw new IllegalStateException("Could not unregister " + registeredName, e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * @return True if steps are being timed.
+     */
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Start or stop timing steps. Enabling starts a fresh measurement.
+     * @param enabled True to time steps.
+     */
+    @Override
+    public synchronized void setEnabled(boolean enabled)
+    {
+        if(enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Forget every step timed so far.
+     */
+    @Override
+    public synchronized void reset()
+    {
+        Arrays.fill(actNanos, 0);
+        Arrays.fill(phaseNanos, 0);
+        stepNanos.reset();
+        firstStepStart = 0;
+        lastStepEnd = 0;
+    }
+
+    /**
+     * @return The figures as they stand now.
+     */
+    public synchronized Snapshot snapshot()
+    {
+        Map<String, Long> phases = new LinkedHashMap<String, Long>();
+        for(int i = 0; i < species.length; i++) {
+            phases.put("act:" + species[i].getSimpleName(), actNanos[i]);
+        }
+        for(int i = 0; i < PHASE_NAMES.length; i++) {
+            phases.put(PHASE_NAMES[i], phaseNanos[i]);
+        }
+        Map<String, Integer> populations = new LinkedHashMap<String, Integer>();
+        for(int i = 0; i < species.length; i++) {
+            populations.put(species[i].getSimpleName(), speciesPopulation[i]);
+        }
+        long steps = stepNanos.getCount();
+        long elapsed = lastStepEnd - firstStepStart;
+        double stepsPerSecond = steps == 0 || elapsed <= 0 ? 0 : steps * 1e9 / elapsed;
+        return new Snapshot(enabled, steps, stepsPerSecond,
+                            stepNanos.getValueAtPercentile(50), stepNanos.getValueAtPercentile(99),
+                            stepNanos.getMax(), stepNanos.getMean(),
+                            phases, population, populations);
+    }
+
+    @Override
+    public long getSteps()
+    {
+        return snapshot().getSteps();
+    }
+
+    @Override
+    public double getStepsPerSecond()
+    {
+        return snapshot().getStepsPerSecond();
+    }
+
+    @Override
+    public long getStepNanosP50()
+    {
+        return snapshot().getStepNanosP50();
+    }
+
+    @Override
+    public long getStepNanosP99()
+    {
+        return snapshot().getStepNanosP99();
+    }
+
+    @Override
+    public long getStepNanosMax()
+    {
+        return snapshot().getStepNanosMax();
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos()
+    {
+        return snapshot().getPhaseNanos();
+    }
+
+    @Override
+    public int getPopulation()
+    {
+        return snapshot().getPopulation();
+    }
+
+    @Override
+    public Map<String, Integer> getSpeciesPopulation()
+    {
+        return snapshot().getSpeciesPopulation();
+    }
+
+    /**
+     * Note the start of a step. Called by the simulator.
+     * @return The time now, in nanoseconds.
+     */
+    long startStep()
+    {
+        stepStart = System.nanoTime();
+        return stepStart;
+    }
+
+    /**
+     * Add to the time an animal's species has spent acting this step.
+     * Called by the simulator.
+     * @param animalClass The class of the animal.
+     * @param nanos The time it spent acting.
+     */
+    void recordAct(Class<?> animalClass, long nanos)
+    {
+        Class<?>[] known = species;
+        for(int i = 0; i < stepActNanos.length; i++) {
+            if(known[i] == animalClass) {
+                stepActNanos[i] += nanos;
+                return;
+            }
+        }
+        addSpecies(animalClass);
+        stepActNanos[stepActNanos.length - 1] += nanos;
+    }
+
+    /**
+     * Add to the time spent in a phase this step. Called by the simulator.
+     * @param phase The phase, e.g. MERGE.
+     * @param nanos The time spent in it.
+     */
+    void recordPhase(int phase, long nanos)
+    {
+        stepPhaseNanos[phase] += nanos;
+    }
+
+    /**
+     * Note the end of a step and add its times to the totals. Called by
+     * the simulator.
+     */
+    synchronized void endStep()
+    {
+        long now = System.nanoTime();
+        for(int i = 0; i < stepActNanos.length; i++) {
+            actNanos[i] += stepActNanos[i];
+            stepActNanos[i] = 0;
+        }
+        for(int i = 0; i < stepPhaseNanos.length; i++) {
+            phaseNanos[i] += stepPhaseNanos[i];
+            stepPhaseNanos[i] = 0;
+        }
+        if(stepNanos.getCount() == 0) {
+            firstStepStart = stepStart;
+        }
+        stepNanos.record(now - stepStart);
+        lastStepEnd = now;
+        population = 0;
+        FieldStats stats = field.getStats();
+        for(int i = 0; i < species.length; i++) {
+            speciesPopulation[i] = stats.getCount(species[i], field);
+            population += speciesPopulation[i];
+        }
+    }
+
+    /**
+     * Start timing a species that is not one of those simulated.
+     */
+    private synchronized void addSpecies(Class<?> animalClass)
+    {
+        int count = species.length + 1;
+        Class<?>[] larger = Arrays.copyOf(species, count);
+        larger[count - 1] = animalClass;
+        actNanos = Arrays.copyOf(actNanos, count);
+        speciesPopulation = Arrays.copyOf(speciesPopulation, count);
+        stepActNanos = Arrays.copyOf(stepActNanos, count);
+        species = larger;
+    }
+
+    /**
+     * The figures at one moment.
+     */
+    public static class Snapshot
+    {
+        private final boolean enabled;
+        private final long steps;
+        private final double stepsPerSecond;
+        private final long stepNanosP50;
+        private final long stepNanosP99;
+        private final long stepNanosMax;
+        private final double stepNanosMean;
+        private final Map<String, Long> phaseNanos;
+        private final int population;
+        private final Map<String, Integer> speciesPopulation;
+
+        Snapshot(boolean enabled, long steps, double stepsPerSecond,
+                 long stepNanosP50, long stepNanosP99, long stepNanosMax, double stepNanosMean,
+                 Map<String, Long> phaseNanos, int population,
+                 Map<String, Integer> speciesPopulation)
+        {
+            this.enabled = enabled;
+            this.steps = steps;
+            this.stepsPerSecond = stepsPerSecond;
+            this.stepNanosP50 = stepNanosP50;
+            this.stepNanosP99 = stepNanosP99;
+            this.stepNanosMax = stepNanosMax;
+            this.stepNanosMean = stepNanosMean;
+            this.phaseNanos = Collections.unmodifiableMap(phaseNanos);
+            this.population = population;
+            this.speciesPopulation = Collections.unmodifiableMap(speciesPopulation);
+        }
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public long getSteps()
+        {
+            return steps;
+        }
+
+        public double getStepsPerSecond()
+        {
+            return stepsPerSecond;
+        }
+
+        public long getStepNanosP50()
+        {
+            return stepNanosP50;
+        }
+
+        public long getStepNanosP99()
+        {
+            return stepNanosP99;
+        }
+
+        public long getStepNanosMax()
+        {
+            return stepNanosMax;
+        }
+
+        public double getStepNanosMean()
+        {
+            return stepNanosMean;
+        }
+
+        /**
+         * @return The total time spent in each phase, in nanoseconds.
+         */
+        public Map<String, Long> getPhaseNanos()
+        {
+            return phaseNanos;
+        }
+
+        public int getPopulation()
+        {
+            return population;
+        }
+
+        public Map<String, Integer> getSpeciesPopulation()
+        {
+            return speciesPopulation;
+        }
+
+        /**
+         * @return A summary of the figures on several lines.
+         */
+        @Override
+        public String toString()
+        {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%d steps, %.1f steps/s, step p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                                      steps, stepsPerSecond, stepNanosP50 / 1e6,
+                                      stepNanosP99 / 1e6, stepNanosMax / 1e6));
+            for(Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+                text.append(String.format("  %-14s %10.3f ms%n", phase.getKey(), phase.getValue() / 1e6));
+            }
+            text.append("Population ").append(population).append(' ').append(speciesPopulation);
+            return text.toString();
+        }
+    }
+}
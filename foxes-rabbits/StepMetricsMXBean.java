@@ -0,0 +1,73 @@
+package foxes_rabbits_v5;
+
+import java.util.Map;
+
+/**
+ * The management interface of StepMetrics, through which the timings of
+ * a running simulation can be watched and switched on or off over JMX,
+ * e.g. from JConsole.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public interface StepMetricsMXBean
+{
+    /**
+     * @return True if steps are being timed.
+     */
+    boolean isEnabled();
+
+    /**
+     * Start or stop timing steps. Enabling starts a fresh measurement.
+     * @param enabled True to time steps.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return The number of steps timed.
+     */
+    long getSteps();
+
+    /**
+     * @return The number of steps per second, from the start of the
+     *         first step timed to the end of the last.
+     */
+    double getStepsPerSecond();
+
+    /**
+     * @return The median time of a step, in nanoseconds.
+     */
+    long getStepNanosP50();
+
+    /**
+     * @return The 99th percentile time of a step, in nanoseconds.
+     */
+    long getStepNanosP99();
+
+    /**
+     * @return The longest time of a step, in nanoseconds.
+     */
+    long getStepNanosMax();
+
+    /**
+     * @return The total time spent in each phase of the steps timed, in
+     *         nanoseconds, keyed by the name of the phase.
+     */
+    Map<String, Long> getPhaseNanos();
+
+    /**
+     * @return The number of animals alive after the last step timed.
+     */
+    int getPopulation();
+
+    /**
+     * @return The population of each species after the last step timed,
+     *         keyed by the name of the species.
+     */
+    Map<String, Integer> getSpeciesPopulation();
+
+    /**
+     * Forget every step timed so far.
+     */
+    void reset();
+}
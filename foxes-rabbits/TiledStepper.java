@@ -0,0 +1,305 @@
+package foxes_rabbits_v5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Run simulation steps in parallel by splitting the field into square
+ * tiles. An animal only touches the cells next to it, so two tiles
+ * that are not neighbours can act at the same time. The tiles are
+ * colored like a checkerboard with four colors, and each step runs the
+ * four colors one after another, with all tiles of one color acting
+ * in parallel on a ForkJoinPool.
+ *
+ * In a toroidal field the first and last tiles of a row or column are
+ * neighbours too. There the last tile takes in any cells left over
+ * rather than being narrower than the others, and if a row or column
+ * has an odd number of tiles its last tile gets a color of its own,
+ * giving up to nine colors.
+ *
+ * Each tile draws its random numbers from its own stream, keyed by the
+ * step and tile, so a run gives the same results whatever the number
+ * of threads.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class TiledStepper
+{
+    // The default width and depth of a tile, in cells.
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    // The smallest tile size that keeps same-colored tiles apart, for
+    // each cell of the largest neighbourhood radius.
+    private static final int MIN_TILE_SIZE = 2;
+
+    // The field being simulated.
+    private final Field field;
+    // The width and depth of a tile, in cells.
+    private final int tileSize;
+    // The largest neighbourhood radius of any animal.
+    private final int radius;
+    // The number of threads.
+    private final int threads;
+    // The tile row of each row and the tile column of each column.
+    private final int[] rowTiles, colTiles;
+    // The number of tile rows and columns.
+    private final int tileRows, tileCols;
+    // The number of colors across a row of tiles, and of all colors,
+    // i.e. phases per step.
+    private final int colColors, phases;
+    // The pool running the tiles.
+    private final ForkJoinPool pool;
+    // The animals that start each step in each tile.
+    private final List<List<Animal>> tileAnimals;
+    // The animals born in each tile during a step.
+    private final List<List<Animal>> tileNewborns;
+    // The tiles of each color.
+    private final int[][] phaseTiles;
+
+    /**
+     * Create a stepper for the given field, whose animals only reach
+     * the cells adjacent to them.
+     * @param field The field being simulated.
+     * @param threads The number of threads to use.
+     * @param tileSize The width and depth of a tile, in cells.
+     */
+    public TiledStepper(Field field, int threads, int tileSize) {
+        this(field, threads, tileSize, 1);
+    }
+
+    /**
+     * Create a stepper for the given field. An animal reaches as far as
+     * its neighbourhood radius, so tiles of the same color must be at
+     * least twice that apart; smaller tiles are enlarged.
+     * @param field The field being simulated.
+     * @param threads The number of threads to use.
+     * @param tileSize The width and depth of a tile, in cells.
+     * @param radius The largest neighbourhood radius of any animal.
+     */
+    public TiledStepper(Field field, int threads, int tileSize, int radius) {
+        this.field = field;
+        this.radius = Math.max(1, radius);
+        this.tileSize = Math.max(MIN_TILE_SIZE * this.radius, tileSize);
+        this.threads = Math.max(1, threads);
+        rowTiles = tileIndexes(field.getDepth());
+        colTiles = tileIndexes(field.getWidth());
+        tileRows = rowTiles[rowTiles.length - 1] + 1;
+        tileCols = colTiles[colTiles.length - 1] + 1;
+        colColors = colorCount(tileCols);
+        phases = colorCount(tileRows) * colColors;
+        pool = new ForkJoinPool(this.threads);
+
+        int tiles = tileRows * tileCols;
+        tileAnimals = new ArrayList<List<Animal>>(tiles);
+        tileNewborns = new ArrayList<List<Animal>>(tiles);
+        for(int t = 0; t < tiles; t++) {
+            tileAnimals.add(new ArrayList<Animal>());
+            tileNewborns.add(new ArrayList<Animal>());
+        }
+
+        int[] phaseSizes = new int[phases];
+        for(int t = 0; t < tiles; t++) {
+            phaseSizes[phaseOf(t)]++;
+        }
+        phaseTiles = new int[phases][];
+        for(int phase = 0; phase < phases; phase++) {
+            phaseTiles[phase] = new int[phaseSizes[phase]];
+            phaseSizes[phase] = 0;
+        }
+        for(int t = 0; t < tiles; t++) {
+            int phase = phaseOf(t);
+            phaseTiles[phase][phaseSizes[phase]++] = t;
+        }
+    }
+
+    /**
+     * Let every live animal in the list act once. Afterwards the list
+     * holds the survivors, followed by the animals born during the step.
+     * @param animals The animals in the field.
+     * @param step The number of the step being run.
+     */
+    public void step(List<Animal> animals, int step) {
+        for(int t = 0; t < tileAnimals.size(); t++) {
+            tileAnimals.get(t).clear();
+            tileNewborns.get(t).clear();
+        }
+        // Dead animals are dropped here, and recycled if the field does.
+        AnimalPool deadAnimals = field.getAnimalPool();
+        for(Animal animal : animals) {
+            if(animal.isAlive()) {
+                tileAnimals.get(tileOf(animal.getLocation())).add(animal);
+            }
+            else if(deadAnimals != null) {
+                deadAnimals.release(animal);
+            }
+        }
+
+        for(int phase = 0; phase < phases; phase++) {
+            int[] tiles = phaseTiles[phase];
+            pool.invoke(new PhaseTask(tiles, 0, tiles.length, step));
+        }
+
+        animals.clear();
+        for(List<Animal> tile : tileAnimals) {
+            for(Animal animal : tile) {
+                if(animal.isAlive()) {
+                    animals.add(animal);
+                }
+                else if(deadAnimals != null) {
+                    deadAnimals.release(animal);
+                }
+            }
+        }
+        for(List<Animal> newborns : tileNewborns) {
+            animals.addAll(newborns);
+        }
+    }
+
+    /**
+     * Stop the threads of this stepper.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return The width and depth of a tile, in cells.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return The largest neighbourhood radius of any animal.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Let the animals of one tile act, drawing from the tile's stream.
+     * @param tile The tile.
+     * @param step The number of the step being run.
+     */
+    private void actTile(int tile, int step) {
+        List<Animal> animals = tileAnimals.get(tile);
+        if(animals.isEmpty()) {
+            return;
+        }
+        List<Animal> newborns = tileNewborns.get(tile);
+        Randomizer.bind(Randomizer.stream(step, tile));
+        try {
+            for(Animal animal : animals) {
+                // It may have been eaten by an animal in another tile.
+                if(animal.isAlive()) {
+                    animal.act(newborns);
+                }
+            }
+        }
+        finally {
+            Randomizer.unbind();
+        }
+    }
+
+    /**
+     * Return the tile containing the given location.
+     */
+    private int tileOf(Location location) {
+        return rowTiles[location.getRow()] * tileCols + colTiles[location.getCol()];
+    }
+
+    /**
+     * Return the index of the tile holding each of a number of rows or
+     * columns. In a toroidal field the last tile takes in the cells
+     * left over, so that it is as far across as the others.
+     * @param cells The number of rows or columns.
+     */
+    private int[] tileIndexes(int cells) {
+        int count = field.isToroidal() ? Math.max(1, cells / tileSize)
+                                       : (cells + tileSize - 1) / tileSize;
+        int[] tiles = new int[cells];
+        for(int i = 0; i < cells; i++) {
+            tiles[i] = Math.min(i / tileSize, count - 1);
+        }
+        return tiles;
+    }
+
+    /**
+     * Return the number of colors needed along a row or column of tiles.
+     * @param count The number of tiles along it.
+     */
+    private int colorCount(int count) {
+        return hasOwnColor(count - 1, count) ? 3 : 2;
+    }
+
+    /**
+     * Return whether a tile must have a color of its own along its row
+     * or column: the last of an odd number of tiles in a toroidal field,
+     * which is next to the first tile, of the same color otherwise.
+     * @param index The index of the tile along the row or column.
+     * @param count The number of tiles along it.
+     */
+    private boolean hasOwnColor(int index, int count) {
+        return field.isToroidal() && count > 1 && (count & 1) == 1 && index == count - 1;
+    }
+
+    /**
+     * Return the color of a tile along its row or column.
+     */
+    private int colorOf(int index, int count) {
+        return hasOwnColor(index, count) ? 2 : index & 1;
+    }
+
+    /**
+     * Return the checkerboard color of the given tile.
+     */
+    private int phaseOf(int tile) {
+        int row = tile / tileCols;
+        int col = tile % tileCols;
+        return colorOf(row, tileRows) * colColors + colorOf(col, tileCols);
+    }
+
+    /**
+     * Run a range of the tiles of one color, splitting the range
+     * between threads.
+     */
+    private class PhaseTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        // The tiles of the color, and the range of them to run.
+        private final int[] tiles;
+        private final int from, to;
+        // The number of the step being run.
+        private final int step;
+
+        PhaseTask(int[] tiles, int from, int to, int step) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from == 1) {
+                actTile(tiles[from], step);
+            }
+            else if(to > from) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PhaseTask(tiles, from, middle, step),
+                          new PhaseTask(tiles, middle, to, step));
+            }
+        }
+    }
+}
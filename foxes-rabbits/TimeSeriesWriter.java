@@ -0,0 +1,306 @@
+package foxes_rabbits_v5;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Record the population of each species at every step to a file. As a
+ * simulation listener it is told about each step; it copies the step
+ * number and the counts into a preallocated row and queues it, and a
+ * background thread writes the rows through a FileChannel with a large
+ * direct buffer. The queue is bounded: if the writer falls behind by
+ * more than QUEUE_ROWS rows, the simulation waits for it.
+ *
+ * Two formats are supported. CSV has a header line naming the species
+ * and one line per step. BINARY is columnar: a header holding MAGIC,
+ * the version, the number of species and their names, followed by
+ * blocks of up to BLOCK_ROWS rows, each holding its row count, then
+ * all of its step numbers, then the counts of each species in turn.
+ * All numbers are big-endian ints; names are a length and UTF-8 bytes.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+public class TimeSeriesWriter implements SimulationListener, Closeable
+{
+    /**
+     * The format of the file.
+     */
+    public enum Format { CSV, BINARY }
+
+    // Identifies a binary time series, and the version of its format.
+    public static final int MAGIC = 0x46585453;
+    public static final int VERSION = 1;
+    // The most rows in one block of the binary format.
+    public static final int BLOCK_ROWS = 8192;
+
+    // The most rows waiting to be written.
+    private static final int QUEUE_ROWS = 4096;
+    // The size of the direct buffer the file is written through.
+    private static final int BUFFER_BYTES = 1 << 20;
+    // Queued after the last row to stop the writer.
+    private static final int[] END = new int[0];
+
+    // The classes of the species recorded, in column order.
+    private final Class<?>[] species;
+    // The format of the file.
+    private final Format format;
+    // The file being written.
+    private final FileChannel channel;
+    // The buffer the file is written through.
+    private final ByteBuffer buffer;
+    // Rows filled by the simulation, waiting to be written.
+    private final BlockingQueue<int[]> filledRows;
+    // Rows written, ready to be filled again.
+    private final BlockingQueue<int[]> emptyRows;
+    // Writes the rows.
+    private final Thread writer;
+    // The columns of the binary block being collected: the step
+    // numbers, then the counts of each species.
+    private final int[][] block;
+    // The number of rows in the block.
+    private int blockRows;
+    // Why writing failed, if it did.
+    private volatile IOException failure;
+    // Whether the writer has been closed.
+    private volatile boolean closed;
+
+    /**
+     * Create a writer and start its background thread.
+     * @param file The file to write; it is replaced if it exists.
+     * @param format The format of the file.
+     * @param prototypes One animal of each species to record.
+     * @throws IOException If the file cannot be created.
+     */
+    public TimeSeriesWriter(Path file, Format format, List<? extends Animal> prototypes)
+        throws IOException
+    {
+        this.format = format;
+        species = new Class<?>[prototypes.size()];
+        for(int i = 0; i < species.length; i++) {
+            species[i] = prototypes.get(i).getClass();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                   StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        filledRows = new ArrayBlockingQueue<int[]>(QUEUE_ROWS + 1);
+        emptyRows = new ArrayBlockingQueue<int[]>(QUEUE_ROWS);
+        for(int i = 0; i < QUEUE_ROWS; i++) {
+            emptyRows.add(new int[species.length + 1]);
+        }
+        block = format == Format.BINARY ? new int[species.length + 1][BLOCK_ROWS] : null;
+
+        writeHeader();
+        writer = new Thread(this::writeRows, "time-series-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue the step number and the population of each species.
+     * @param step Which iteration step it is.
+     * @param field The field whose population is recorded.
+     * @throws IllegalStateException If the writer has been closed.
+     */
+    @Override
+    public void showStatus(int step, Field field)
+    {
+        if(closed) {
+            throw new IllegalStateException("The time series writer is closed");
+        }
+        if(failure != null) {
+            return;
+        }
+        int[] row;
+        try {
+            row = emptyRows.take();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        row[0] = step;
+        FieldStats stats = field.getStats();
+        for(int i = 0; i < species.length; i++) {
+            row[i + 1] = stats.getCount(species[i], field);
+        }
+        filledRows.offer(row);
+    }
+
+    /**
+     * Write the rows still queued, then close the file.
+     * @throws IOException If writing failed at any point.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        filledRows.offer(END);
+        try {
+            writer.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write queued rows until the end is reached. Runs on the writer thread.
+     */
+    private void writeRows()
+    {
+        try {
+            int[] row;
+            while((row = filledRows.take()) != END) {
+                if(format == Format.CSV) {
+                    writeCsv(row);
+                }
+                else {
+                    for(int i = 0; i < row.length; i++) {
+                        block[i][blockRows] = row[i];
+                    }
+                    if(++blockRows == BLOCK_ROWS) {
+                        writeBlock();
+                    }
+                }
+                emptyRows.add(row);
+            }
+            if(blockRows > 0) {
+                writeBlock();
+            }
+            flush();
+        }
+        catch(IOException e) {
+            fail(e);
+        }
+        catch(InterruptedException e) {
+            fail(new IOException("Interrupted while writing", e));
+        }
+        catch(RuntimeException e) {
+            fail(new IOException("Writing failed", e));
+        }
+    }
+
+    /**
+     * Record why writing failed, and let the simulation carry on
+     * without waiting for rows. Runs on the writer thread, which stops.
+     */
+    private void fail(IOException e)
+    {
+        failure = e;
+        filledRows.clear();
+        emptyRows.clear();
+        for(int i = 0; i < QUEUE_ROWS; i++) {
+            emptyRows.offer(new int[species.length + 1]);
+        }
+    }
+
+    /**
+     * Write the header of the file.
+     */
+    private void writeHeader() throws IOException
+    {
+        if(format == Format.CSV) {
+            StringBuilder header = new StringBuilder("step");
+            for(Class<?> animalClass : species) {
+                header.append(',').append(animalClass.getSimpleName());
+            }
+            header.append('\n');
+            buffer.put(header.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        else {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(species.length);
+            for(Class<?> animalClass : species) {
+                byte[] name = animalClass.getSimpleName().getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(name.length);
+                buffer.put(name);
+            }
+        }
+    }
+
+    /**
+     * Write one row as a line of CSV.
+     */
+    private void writeCsv(int[] row) throws IOException
+    {
+        // At most 11 characters per number, plus a separator.
+        if(buffer.remaining() < row.length * 12) {
+            flush();
+        }
+        for(int i = 0; i < row.length; i++) {
+            if(i > 0) {
+                buffer.put((byte) ',');
+            }
+            putDecimal(row[i]);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Put a number into the buffer as decimal digits.
+     */
+    private void putDecimal(int value)
+    {
+        if(value < 0) {
+            buffer.put((byte) '-');
+            if(value == Integer.MIN_VALUE) {
+                buffer.put("2147483648".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            value = -value;
+        }
+        int divisor = 1;
+        while(divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for(; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Write the collected rows as one block of columns.
+     */
+    private void writeBlock() throws IOException
+    {
+        if(buffer.remaining() < 4) {
+            flush();
+        }
+        buffer.putInt(blockRows);
+        for(int[] column : block) {
+            for(int i = 0; i < blockRows; i++) {
+                if(buffer.remaining() < 4) {
+                    flush();
+                }
+                buffer.putInt(column[i]);
+            }
+        }
+        blockRows = 0;
+    }
+
+    /**
+     * Write the contents of the buffer to the file.
+     */
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
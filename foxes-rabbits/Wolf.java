@@ -1,8 +1,6 @@
 package foxes_rabbits_v5;
 
-import java.util.List;
 import java.awt.Color;
-import java.util.Iterator;
 import java.util.Random;
 
 /**
@@ -13,37 +11,35 @@ import java.util.Random;
  * @version 2021.11.01
  */
 
-public class Wolf extends Animal
+public class Wolf extends Predator
 {
-	// Characteristics shared by all foxes (class variables).
+	// Characteristics shared by all wolves (class variables), read from
+	// the species registry.
+	private static final Species SPECIES = SpeciesRegistry.getDefault().get("Wolf");
 	
 	// The age at which a wolf can start to breed.
-    private static final int BREEDING_AGE = 20;
+    private static final int BREEDING_AGE = SPECIES.getBreedingAge();
     
     // The age to which a wolf can live.
-    private static final int MAX_AGE = 200;
+    private static final int MAX_AGE = SPECIES.getMaxAge();
     
     // The likelihood of a wolf breeding.
-    private static final double BREEDING_PROBABILITY = 0.05;
+    private static final double BREEDING_PROBABILITY = SPECIES.getBreedingProbability();
     
     // The likelihood of the creation of a wolf.
-    private static final double WOLF_CREATION_PROBABILITY = 0.04;
+    private static final double WOLF_CREATION_PROBABILITY = SPECIES.getCreationProbability();
     
     // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 1;
+    private static final int MAX_LITTER_SIZE = SPECIES.getMaxLitterSize();
     
-    // The food value of a single rabbit. In effect, this is the number of steps a fox can go before it has to eat again.
-    private static final int RABBIT_FOOD_VALUE = 8;
-    private static final int FOX_FOOD_VALUE = 3;
+    // The food level of a newborn wolf.
+    private static final int MAX_FOOD_LEVEL = SPECIES.getMaxFoodLevel();
     
     // A shared random number generator to control breeding.
     private static final Random rand = Randomizer.getRandom();
     
-    // The wolf's food level, which is increased by eating rabbits & foxes.
-    private int foodLevel;
-    
     // The fox's generic color.
-    private static final Color wolfColor = Color.black;
+    private static final Color wolfColor = SPECIES.getColor();
 
     
     
@@ -56,88 +52,23 @@ public class Wolf extends Animal
      * @param location The location within the field.
      */
     public Wolf(boolean randomAge, Field field, Location location) {
-        super(field, location);
-        if(randomAge) {
-            setAge(rand.nextInt(MAX_AGE));
-            foodLevel = rand.nextInt(RABBIT_FOOD_VALUE + FOX_FOOD_VALUE);
-        }
-        else {
-            setAge(0);
-            foodLevel = (RABBIT_FOOD_VALUE + FOX_FOOD_VALUE);
-        }
-    }
-    
-    /**
-     * This is what the fox does most of the time: it hunts for
-     * rabbits. In the process, it might breed, die of hunger,
-     * or die of old age.
-     * @param field The field currently occupied.
-     * @param newFoxes A list to return newly born foxes.
-     */
-    @Override
-    public void act(List<Animal> newFoxes) {
-        incrementAge();
-        incrementHunger();
-        if(isAlive()) {
-            giveBirth(newFoxes);            
-            // Move towards a source of food if found.
-            Location newLocation = findFood();
-            if(newLocation == null) { 
-                // No food found - try to move to a free location.
-                newLocation = getField().freeAdjacentLocation(getLocation());
-            }
-            // See if it was possible to move.
-            if(newLocation != null) {
-                setLocation(newLocation);
-            }
-            else {
-                setDead();
-            }
-        }
+        super(field, location, SPECIES);
+        initialise(randomAge);
     }
     
     /**
-     * Make this fox more hungry. This could result in the fox's death.
+     * Give the wolf its starting age and food level.
+     * @param randomAge If true, the wolf will have random age and hunger level.
      */
-    private void incrementHunger() {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
+    private void initialise(boolean randomAge) {
+        if(randomAge) {
+            setAge(rand.nextInt(MAX_AGE));
+            setFoodLevel(rand.nextInt(MAX_FOOD_LEVEL));
         }
-    }
-    
-    /**
-     * Look for rabbits adjacent to the current location.
-     * Only the first live rabbit is eaten.
-     * @return Where food was found, or null if it wasn't.
-     */
-    private Location findFood() {
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Rabbit) {
-                Rabbit rabbit = (Rabbit) animal;
-                if(rabbit.isAlive()) { 
-                    rabbit.setDead();
-                    foodLevel = RABBIT_FOOD_VALUE;
-                    // Remove the dead rabbit from the field.
-                    return where;
-                }  
-            }
-            if(animal instanceof Fox) {
-                Fox fox = (Fox) animal;
-                if(fox.isAlive()) { 
-                    fox.setDead();
-                    foodLevel = FOX_FOOD_VALUE;
-                    // Remove the dead rabbit from the field.
-                    return where;
-                }  
-            }
+        else {
+            setAge(0);
+            setFoodLevel(MAX_FOOD_LEVEL);
         }
-        return null;
     }
     
     
@@ -197,7 +128,12 @@ public class Wolf extends Animal
      */
     @Override
     protected Animal createAnimal(boolean b, Field field, Location location) {
-    	return new Wolf(b, field, location);
+    	Wolf wolf = (Wolf) reuse(field, location);
+    	if(wolf == null) {
+    		return new Wolf(b, field, location);
+    	}
+    	wolf.initialise(b);
+    	return wolf;
     }
     
     /**
@@ -0,0 +1,187 @@
+package foxes_rabbits_v5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro-benchmarks for the hot paths that work on a single field:
+ * neighbour lookups, giving birth, hunting, and counting the animals,
+ * both from the field's own counts and by scanning it. The field is
+ * filled with animals at each density, mostly rabbits, and each
+ * benchmark cycles through a fixed set of random locations.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark
+{
+    // The number of precomputed locations or animals each benchmark cycles through.
+    static final int SAMPLES = 1024;
+
+    // The size of the field, as depth x width.
+    @Param({"80x120", "400x400", "1000x1000", "4000x4000"})
+    public String size;
+
+    // The fraction of cells holding an animal.
+    @Param({"0.1", "0.5", "0.9"})
+    public double density;
+
+    // The field, and random locations within it.
+    private Field field;
+    private Location[] locations;
+    // Receives cells from the cell-based lookups.
+    private int[] buffer;
+    // Rabbits old enough to breed, and foxes to hunt with.
+    private Rabbit[] parents;
+    private Fox[] foxes;
+    // Receives the young of giveBirth.
+    private List<Animal> newborns;
+    // Counts the animals by scanning the field, as it is reset each time.
+    private FieldStats scanner;
+    // The next sample to use.
+    private int next;
+
+    /**
+     * Fill the field and pick the samples.
+     */
+    @Setup
+    public void setUp() {
+        Random setup = new Random(42);
+        field = new Field(depthOf(size), widthOf(size));
+        fill(field, density, setup);
+        locations = new Location[SAMPLES];
+        for(int i = 0; i < SAMPLES; i++) {
+            locations[i] = new Location(setup.nextInt(field.getDepth()), setup.nextInt(field.getWidth()));
+        }
+        buffer = new int[Field.MAX_ADJACENT];
+        parents = new Rabbit[SAMPLES];
+        foxes = new Fox[SAMPLES];
+        for(int i = 0; i < SAMPLES; i++) {
+            parents[i] = new Rabbit(false, field, locations[i]);
+            parents[i].setAge(parents[i].getBreedingAge());
+            foxes[i] = new Fox(false, field, locations[i]);
+        }
+        newborns = new ArrayList<Animal>();
+        scanner = new FieldStats();
+    }
+
+    @Benchmark
+    public List<Location> adjacentLocations() {
+        return field.adjacentLocations(nextLocation());
+    }
+
+    @Benchmark
+    public int adjacentCells() {
+        return field.adjacentCells(nextLocation(), buffer);
+    }
+
+    @Benchmark
+    public List<Location> getFreeAdjacentLocations() {
+        return field.getFreeAdjacentLocations(nextLocation());
+    }
+
+    @Benchmark
+    public int freeAdjacentCells() {
+        return field.freeAdjacentCells(nextLocation(), buffer);
+    }
+
+    @Benchmark
+    public int giveBirth() {
+        parents[next++ & (SAMPLES - 1)].giveBirth(newborns);
+        int births = newborns.size();
+        for(Animal young : newborns) {
+            young.setDead();
+        }
+        newborns.clear();
+        return births;
+    }
+
+    /**
+     * Hunt from the next fox. Eaten rabbits are replaced, so allocation
+     * includes a Rabbit and its Location for every successful hunt.
+     */
+    @Benchmark
+    public Location findFood() {
+        Location where = foxes[next++ & (SAMPLES - 1)].findFood();
+        if(where != null) {
+            new Rabbit(false, field, where);
+        }
+        return where;
+    }
+
+    @Benchmark
+    public boolean countStats() {
+        return field.getStats().isViable(field);
+    }
+
+    @Benchmark
+    public boolean scanStats() {
+        scanner.reset();
+        return scanner.isViable(field);
+    }
+
+    /**
+     * @return The next of the random locations.
+     */
+    private Location nextLocation() {
+        return locations[next++ & (SAMPLES - 1)];
+    }
+
+    /**
+     * Fill the field with animals at the given density: 70% rabbits,
+     * 20% foxes and 10% wolves.
+     */
+    static void fill(Field field, double density, Random setup) {
+        for(int row = 0; row < field.getDepth(); row++) {
+            for(int col = 0; col < field.getWidth(); col++) {
+                if(setup.nextDouble() < density) {
+                    Location location = new Location(row, col);
+                    double kind = setup.nextDouble();
+                    if(kind < 0.7) {
+                        new Rabbit(true, field, location);
+                    }
+                    else if(kind < 0.9) {
+                        new Fox(true, field, location);
+                    }
+                    else {
+                        new Wolf(true, field, location);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The depth of a size given as depth x width.
+     */
+    static int depthOf(String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    /**
+     * @return The width of a size given as depth x width.
+     */
+    static int widthOf(String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+}
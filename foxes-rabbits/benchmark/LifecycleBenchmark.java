@@ -0,0 +1,98 @@
+package foxes_rabbits_v5;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro-benchmarks for aging a compact population with as many animals
+ * as a field filled at each density, mostly rabbits, a slot at a time
+ * and vectorised. The forks add the jdk.incubator.vector module, so
+ * VectorLifecycle must be on the class path, as it is in the jar that
+ * the build makes.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LifecycleBenchmark
+{
+    // The size of the field, as depth x width.
+    @Param({"80x120", "400x400", "1000x1000", "4000x4000"})
+    public String size;
+
+    // The fraction of cells holding an animal.
+    @Param({"0.1", "0.5", "0.9"})
+    public double density;
+
+    // The lifecycles to compare.
+    private Lifecycle scalar, vector;
+    // The columns of the population, and the number of animals.
+    private byte[] ids;
+    private short[] ages, foodLevels;
+    private byte[] dying;
+    private int animals;
+    // The maximum age and hunger of each species, by id.
+    private short[] maxAges, hunger;
+
+    /**
+     * Fill the columns with random animals.
+     */
+    @Setup
+    public void setUp() {
+        scalar = new Lifecycle();
+        vector = Lifecycle.getVector();
+        if(vector == null) {
+            throw new IllegalStateException("VectorLifecycle or the jdk.incubator.vector module is missing");
+        }
+        List<Species> species = Species.fromPrototypes(SimulatorBenchmark.prototypes());
+        maxAges = new short[species.size()];
+        hunger = new short[species.size()];
+        for(int id = 0; id < maxAges.length; id++) {
+            maxAges[id] = (short) species.get(id).getMaxAge();
+            hunger[id] = (short) (species.get(id).isHunter() ? 1 : 0);
+        }
+        Random setup = new Random(42);
+        animals = (int) (FieldBenchmark.depthOf(size) * (long) FieldBenchmark.widthOf(size) * density);
+        ids = new byte[animals];
+        ages = new short[animals];
+        foodLevels = new short[animals];
+        dying = new byte[animals];
+        for(int slot = 0; slot < animals; slot++) {
+            double kind = setup.nextDouble();
+            // The prototypes are a fox, a rabbit and a wolf.
+            ids[slot] = (byte) (kind < 0.7 ? 1 : kind < 0.9 ? 0 : 2);
+            ages[slot] = (short) setup.nextInt(maxAges[ids[slot]]);
+            foodLevels[slot] = (short) (hunger[ids[slot]] * (1 + setup.nextInt(9)));
+        }
+    }
+
+    @Benchmark
+    public byte[] scalar() {
+        scalar.advance(ids, ages, foodLevels, animals, maxAges, hunger, dying);
+        return dying;
+    }
+
+    @Benchmark
+    public byte[] vector() {
+        vector.advance(ids, ages, foodLevels, animals, maxAges, hunger, dying);
+        return dying;
+    }
+}
@@ -0,0 +1,111 @@
+package foxes_rabbits_v5;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro-benchmarks for a whole simulator: stepping it, with and
+ * without recycling animals, and populating it. The simulator uses the
+ * creation probabilities of the species rather than a density, and is
+ * reset now and then while stepping if it is no longer viable.
+ *
+ * The benchmarks are run with JMH, from the foxes-rabbits directory:
+ *
+ *     gradle jmh
+ *
+ * or from a jar, which takes the usual JMH options:
+ *
+ *     gradle jmhJar
+ *     java -jar build/libs/foxes-rabbits-jmh.jar -prof gc -p size=80x120 Simulator
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatorBenchmark
+{
+    // How many steps pass between viability checks while stepping.
+    private static final int STEPS_PER_CHECK = 100;
+
+    // The size of the field, as depth x width.
+    @Param({"80x120", "400x400", "1000x1000", "4000x4000"})
+    public String size;
+
+    // A simulator, and one that recycles its animals.
+    private Simulator simulator, recycling;
+    // The number of steps run by each simulator.
+    private int steps, recycledSteps;
+
+    /**
+     * Create and populate the simulators.
+     */
+    @Setup
+    public void setUp() {
+        int depth = FieldBenchmark.depthOf(size);
+        int width = FieldBenchmark.widthOf(size);
+        simulator = new Simulator(depth, width, prototypes(), true);
+        recycling = new Simulator(depth, width, prototypes(), true);
+        recycling.setRecycling(true);
+    }
+
+    @Benchmark
+    public Field simulateOneStep() {
+        return step(simulator, ++steps);
+    }
+
+    @Benchmark
+    public Field recycledStep() {
+        return step(recycling, ++recycledSteps);
+    }
+
+    @Benchmark
+    public Field reset() {
+        simulator.reset();
+        return simulator.getField();
+    }
+
+    /**
+     * Step the simulator, and every STEPS_PER_CHECK steps reset it if
+     * it is no longer viable.
+     * @param steps The number of steps run, including this one.
+     * @return The simulator's field.
+     */
+    private static Field step(Simulator simulator, int steps) {
+        simulator.simulateOneStep();
+        Field field = simulator.getField();
+        if(steps % STEPS_PER_CHECK == 0 && !field.getStats().isViable(field)) {
+            simulator.reset();
+        }
+        return field;
+    }
+
+    /**
+     * @return One animal of each species, as the Driver creates them.
+     */
+    static ArrayList<Animal> prototypes() {
+        Field field = new Field(2, 2);
+        Location location = new Location(1, 1);
+        ArrayList<Animal> prototypes = new ArrayList<Animal>();
+        prototypes.add(new Fox(false, field, location));
+        prototypes.add(new Rabbit(false, field, location));
+        prototypes.add(new Wolf(false, field, location));
+        return prototypes;
+    }
+}
@@ -0,0 +1,84 @@
+package foxes_rabbits_v5;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Age the animals of a CompactPopulation with the jdk.incubator.vector
+ * API, as many slots at a time as the machine's preferred vectors hold.
+ * For each vector of slots the species ids are widened to shorts and
+ * used to look up the maximum age and hunger of each lane in vectors
+ * holding the species tables. The ages, food levels and death flags
+ * come from a few lane-wise operations; the flags are worked out from
+ * sign bits rather than with vector masks, which the JIT of JDK 17
+ * allocates as objects when they are stored. The slots left over at the end,
+ * and every slot if there are more species than lanes, are aged one at
+ * a time.
+ *
+ * This class needs the incubator module to compile and run, so it is
+ * kept apart from the other sources and loaded by Lifecycle.getVector.
+ *
+ * @author Izhar Ali
+ * @version 2026.10.18
+ */
+final class VectorLifecycle extends Lifecycle
+{
+    // The vectors of ages and food levels.
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    // The vectors of species ids, with as many lanes as SHORTS.
+    private static final VectorSpecies<Byte> BYTES =
+        VectorSpecies.of(byte.class, VectorShape.forBitSize(SHORTS.vectorBitSize() / 2));
+
+    /**
+     * Create a vectorised lifecycle.
+     */
+    VectorLifecycle()
+    {
+    }
+
+    @Override
+    public String getName()
+    {
+        return "vector" + SHORTS.length();
+    }
+
+    @Override
+    public void advance(byte[] species, short[] ages, short[] foodLevels, int size,
+                        short[] maxAges, short[] hunger, byte[] dying)
+    {
+        int lanes = SHORTS.length();
+        if(maxAges.length > lanes) {
+            // Too many species to look up within a vector.
+            advance(species, ages, foodLevels, 0, size, maxAges, hunger, dying);
+            return;
+        }
+        ShortVector maxAgeTable = ShortVector.fromArray(SHORTS, Arrays.copyOf(maxAges, lanes), 0);
+        ShortVector hungerTable = ShortVector.fromArray(SHORTS, Arrays.copyOf(hunger, lanes), 0);
+        int bound = SHORTS.loopBound(size);
+        for(int slot = 0; slot < bound; slot += lanes) {
+            ShortVector ids = (ShortVector) ByteVector.fromArray(BYTES, species, slot)
+                                                      .convertShape(VectorOperators.B2S, SHORTS, 0);
+            ShortVector maxAge = ids.selectFrom(maxAgeTable);
+            ShortVector hungerStep = ids.selectFrom(hungerTable);
+            ShortVector age = ShortVector.fromArray(SHORTS, ages, slot).add((short) 1);
+            ShortVector foodLevel = ShortVector.fromArray(SHORTS, foodLevels, slot).sub(hungerStep);
+            age.intoArray(ages, slot);
+            foodLevel.intoArray(foodLevels, slot);
+            // The sign of maxAge - age is set if the animal is too old,
+            // and that of foodLevel - 1 if it is starving, which counts
+            // for hunters only: hungerStep is 1 for them, so its
+            // negation has every bit set.
+            ShortVector dies = maxAge.sub(age)
+                .or(hungerStep.neg().and(foodLevel.sub((short) 1)))
+                .lanewise(VectorOperators.LSHR, 15);
+            ((ByteVector) dies.convertShape(VectorOperators.S2B, BYTES, 0)).intoArray(dying, slot);
+        }
+        advance(species, ages, foodLevels, bound, size, maxAges, hunger, dying);
+    }
+}